@@ -27,6 +27,7 @@ package hudson;
 import hudson.model.Saveable;
 import java.io.Closeable;
 import java.io.IOException;
+import jenkins.util.io.WriteBehind;
 
 /**
  * Transaction-like object that can be used to make a bunch of changes to an object, and defer the
@@ -95,7 +96,8 @@ public class BulkChange implements Closeable {
 
         // move this object out of the scope first before save, or otherwise the save() method will do nothing.
         pop();
-        saveable.save();
+        // the changes are on disk once committed, even where saves are otherwise deferred
+        WriteBehind.synchronously(saveable::save);
     }
 
     /**
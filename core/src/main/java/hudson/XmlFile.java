@@ -30,6 +30,8 @@ import com.thoughtworks.xstream.converters.DataHolder;
 import com.thoughtworks.xstream.converters.UnmarshallingContext;
 import com.thoughtworks.xstream.io.HierarchicalStreamDriver;
 import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.diagnosis.OldDataMonitor;
 import hudson.model.Descriptor;
 import hudson.util.AtomicFileWriter;
@@ -50,13 +52,19 @@ import java.nio.file.InvalidPathException;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.function.LongConsumer;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
+import jenkins.util.io.WriteBehind;
+import jenkins.util.xstream.BinaryCache;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.Locator;
@@ -116,6 +124,10 @@ import org.xml.sax.helpers.DefaultHandler;
  * There's a few other possibilities, such as implementing a custom
  * {@link Converter} for XStream, or {@link XStream#alias(String, Class) registering an alias}.
  *
+ * <p>
+ * When {@link BinaryCache} is enabled, a binary copy of the data is kept next to the file
+ * and read instead of it for as long as the file is unchanged.
+ *
  * @see <a href="https://www.jenkins.io/doc/developer/persistence/">Architecture » Persistence</a>
  * @author Kohsuke Kawaguchi
  */
@@ -161,6 +173,17 @@ public final class XmlFile {
         if (LOGGER.isLoggable(Level.FINE)) {
             LOGGER.fine("Reading " + file);
         }
+        WriteBehind.flush(this);
+        HierarchicalStreamReader cached = openBinaryCache();
+        if (cached != null) {
+            try {
+                return xs.unmarshal(cached);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Falling back to parsing " + file, e);
+            } finally {
+                cached.close();
+            }
+        }
         try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
             return xs.fromXML(in);
         } catch (RuntimeException | Error e) {
@@ -176,7 +199,16 @@ public final class XmlFile {
      *      if the XML representation is completely new.
      */
     public Object unmarshal(Object o) throws IOException {
-        return unmarshal(o, false);
+        return unmarshal(o, false, null);
+    }
+
+    /**
+     * Like {@link #unmarshal(Object)}, also reporting the length of the XML read to {@code length},
+     * unless it was loaded from a {@link BinaryCache}.
+     */
+    @Restricted(NoExternalUse.class)
+    public Object unmarshal(Object o, @NonNull LongConsumer length) throws IOException {
+        return unmarshal(o, false, length);
     }
 
     /**
@@ -184,22 +216,47 @@ public final class XmlFile {
      * @since 2.99
      */
     public Object unmarshalNullingOut(Object o) throws IOException {
-        return unmarshal(o, true);
+        return unmarshal(o, true, null);
     }
 
-    private Object unmarshal(Object o, boolean nullOut) throws IOException {
-        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+    private Object unmarshal(Object o, boolean nullOut, @CheckForNull LongConsumer length) throws IOException {
+        WriteBehind.flush(this);
+        HierarchicalStreamReader cached = openBinaryCache();
+        if (cached != null) {
+            try {
+                return unmarshal(cached, o, nullOut);
+            } catch (RuntimeException e) {
+                // fields set so far are overwritten from the XML
+                LOGGER.log(Level.FINE, "Falling back to parsing " + file, e);
+            } finally {
+                cached.close();
+            }
+        }
+        try (CountingInputStream in = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
             // TODO: expose XStream the driver from XStream
-            if (nullOut) {
-                return ((XStream2) xs).unmarshal(DEFAULT_DRIVER.createReader(in), o, null, true);
-            } else {
-                return xs.unmarshal(DEFAULT_DRIVER.createReader(in), o);
+            Object r = unmarshal(DEFAULT_DRIVER.createReader(in), o, nullOut);
+            if (length != null) {
+                length.accept(in.getByteCount());
             }
+            return r;
         } catch (RuntimeException | Error e) {
             throw new IOException("Unable to read " + file, e);
         }
     }
 
+    private Object unmarshal(HierarchicalStreamReader reader, Object o, boolean nullOut) {
+        if (nullOut) {
+            return ((XStream2) xs).unmarshal(reader, o, null, true);
+        } else {
+            return xs.unmarshal(reader, o);
+        }
+    }
+
+    @CheckForNull
+    private HierarchicalStreamReader openBinaryCache() {
+        return BinaryCache.ENABLED ? BinaryCache.open(file) : null;
+    }
+
     public void write(Object o) throws IOException {
         if (LOGGER.isLoggable(Level.FINEST)) {
             LOGGER.log(Level.FINEST, new Throwable(), () -> "Writing " + file);
@@ -210,15 +267,27 @@ public final class XmlFile {
                 : new AtomicFileWriter(file.toPath(), StandardCharsets.UTF_8, false, false);
         try {
             w.write("<?xml version='1.1' encoding='UTF-8'?>\n");
+            byte[] binary = null;
             beingWritten.put(o, null);
             writing.set(file);
             try {
                 xs.toXML(o, w);
+                if (BinaryCache.ENABLED) {
+                    binary = BinaryCache.marshal(xs, o);
+                }
             } finally {
                 beingWritten.remove(o);
                 writing.set(null);
             }
-            w.commit();
+            if (binary != null) {
+                // checksum what this call wrote, even if a concurrent write replaces the file right after
+                w.flush();
+                long checksum = BinaryCache.checksum(w.getTemporaryPath());
+                w.commit();
+                BinaryCache.store(file, checksum, binary);
+            } else {
+                w.commit();
+            }
         } catch (RuntimeException e) {
             throw new IOException(e);
         } finally {
@@ -252,7 +321,9 @@ public final class XmlFile {
     }
 
     public void delete() throws IOException {
+        WriteBehind.discard(this);
         Files.deleteIfExists(Util.fileToPath(file));
+        BinaryCache.delete(file);
     }
 
     public void mkdirs() throws IOException {
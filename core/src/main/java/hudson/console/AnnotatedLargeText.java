@@ -49,6 +49,7 @@ import java.util.zip.GZIPOutputStream;
 import javax.crypto.Cipher;
 import javax.crypto.CipherInputStream;
 import javax.crypto.CipherOutputStream;
+import jenkins.console.NoteFreeLog;
 import jenkins.model.Jenkins;
 import jenkins.security.CryptoConfidentialKey;
 import jenkins.security.stapler.StaplerNotDispatchable;
@@ -84,19 +85,27 @@ public class AnnotatedLargeText<T> extends LargeText {
      */
     private T context;
 
+    /**
+     * The log, if stored in a file.
+     */
+    private final File file;
+
     public AnnotatedLargeText(File file, Charset charset, boolean completed, T context) {
         super(file, charset, completed, true);
         this.context = context;
+        this.file = file;
     }
 
     public AnnotatedLargeText(ByteBuffer memory, Charset charset, boolean completed, T context) {
         super(memory, charset, completed);
         this.context = context;
+        this.file = null;
     }
 
     public AnnotatedLargeText(LargeText.Source source, Charset charset, boolean completed, T context) {
         super(source, charset, completed);
         this.context = context;
+        this.file = null;
     }
 
     /**
@@ -222,11 +231,18 @@ public class AnnotatedLargeText<T> extends LargeText {
 
     /**
      * Strips annotations using a {@link PlainTextConsoleOutputStream}.
+     * Logs known to have no annotations are copied as is.
      * {@inheritDoc}
      */
     @CheckReturnValue
     @Override
     public long writeLogTo(long start, OutputStream out) throws IOException {
+        if (file != null) {
+            long end = NoteFreeLog.transferTo(file, start, out);
+            if (end >= 0) {
+                return end;
+            }
+        }
         return super.writeLogTo(start, new PlainTextConsoleOutputStream(out));
     }
 
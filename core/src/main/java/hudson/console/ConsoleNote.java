@@ -37,17 +37,25 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.io.Writer;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import jenkins.model.Jenkins;
@@ -149,6 +157,26 @@ public abstract class ConsoleNote<T> implements Serializable, Describable<Consol
     @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "nonfinal for tests & script console")
     public static /* nonfinal for tests & script console */ boolean INSECURE = SystemProperties.getBoolean(ConsoleNote.class.getName() + ".INSECURE");
 
+    /**
+     * How many verified notes {@link #readFrom} keeps, keyed by their MAC, so that notes occurring repeatedly,
+     * such as {@link HyperlinkNote}s to the same page, are only verified and decompressed once.
+     * Each reader still gets a freshly deserialized note, since {@link #annotate} may modify it.
+     * 0 disables the cache.
+     */
+    private static final int VERIFIED_NOTES_SIZE = SystemProperties.getInteger(ConsoleNote.class.getName() + ".verifiedNotesSize", 256);
+
+    private static final Map<ByteBuffer, VerifiedNote> VERIFIED_NOTES = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ByteBuffer, VerifiedNote> eldest) {
+            return size() > VERIFIED_NOTES_SIZE;
+        }
+    });
+
+    /**
+     * A payload whose MAC was checked, along with its decompressed serial form.
+     */
+    private record VerifiedNote(byte[] payload, byte[] serialized) {}
+
     /**
      * When the line of a console output that this annotation is attached is read by someone,
      * a new {@link ConsoleNote} is de-serialized and this method is invoked to annotate that line.
@@ -267,18 +295,38 @@ public abstract class ConsoleNote<T> implements Serializable, Describable<Consol
             if (!Arrays.equals(postamble, POSTAMBLE))
                 return null;    // not a valid postamble
 
-            if (!INSECURE) {
-                if (mac == null) {
-                    throw new IOException("Refusing to deserialize unsigned note from an old log.");
-                } else if (!MAC.checkMac(buf, mac)) {
-                    throw new IOException("MAC mismatch");
+            Jenkins jenkins = Jenkins.getInstanceOrNull();
+            ClassLoader loader = jenkins != null ? jenkins.pluginManager.uberClassLoader : ConsoleNote.class.getClassLoader();
+
+            ByteBuffer key = mac != null && VERIFIED_NOTES_SIZE > 0 ? ByteBuffer.wrap(mac) : null;
+            byte[] serialized = null;
+            if (key != null) {
+                VerifiedNote verified = VERIFIED_NOTES.get(key);
+                // the same payload was already checked against this MAC
+                if (verified != null && Arrays.equals(verified.payload, buf)) {
+                    serialized = verified.serialized;
                 }
             }
 
-            Jenkins jenkins = Jenkins.getInstanceOrNull();
+            if (serialized == null) {
+                if (!INSECURE) {
+                    if (mac == null) {
+                        throw new IOException("Refusing to deserialize unsigned note from an old log.");
+                    } else if (!MAC.checkMac(buf, mac)) {
+                        throw new IOException("MAC mismatch");
+                    }
+                }
+                if (key != null && !INSECURE) {
+                    try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(buf))) {
+                        serialized = is.readAllBytes();
+                    }
+                    VERIFIED_NOTES.put(key, new VerifiedNote(buf, serialized));
+                }
+            }
 
-            try (ObjectInputStream ois = new ObjectInputStreamEx(new GZIPInputStream(new ByteArrayInputStream(buf)),
-                    jenkins != null ? jenkins.pluginManager.uberClassLoader : ConsoleNote.class.getClassLoader(),
+            // always deserialize a fresh note, so readers never share one
+            try (ObjectInputStream ois = new ObjectInputStreamEx(serialized != null ? new ByteArrayInputStream(serialized) : new GZIPInputStream(new ByteArrayInputStream(buf)),
+                    loader,
                     ClassFilter.DEFAULT)) {
                 return getConsoleNote(ois);
             }
@@ -335,26 +383,48 @@ public abstract class ConsoleNote<T> implements Serializable, Describable<Consol
     @SuppressFBWarnings(value = "MS_PKGPROTECT", justification = "used in several plugins")
     public static final byte[] POSTAMBLE = POSTAMBLE_STR.getBytes(StandardCharsets.UTF_8);
 
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+    private static final long FIRSTS = (PREAMBLE[0] & 0xFFL) * ONES;
+
     /**
      * Locates the preamble in the given buffer.
      */
     public static int findPreamble(byte[] buf, int start, int len) {
         int e = start + len - PREAMBLE.length + 1;
+        int end = start + len;
 
-        OUTER:
-        for (int i = start; i < e; i++) {
-            if (buf[i] == PREAMBLE[0]) {
-                // check for the rest of the match
-                for (int j = 1; j < PREAMBLE.length; j++) {
-                    if (buf[i + j] != PREAMBLE[j])
-                        continue OUTER;
+        int i = start;
+        while (i < e) {
+            // the preamble starts with ESC, which is rare in logs, so look for it eight bytes at a time
+            if (i + Long.BYTES <= end) {
+                long x = (long) LONGS.get(buf, i) ^ FIRSTS;
+                if (((x - ONES) & ~x & HIGHS) == 0) {
+                    i += Long.BYTES;
+                    continue;
+                }
+            }
+            // at least one of the next bytes may be ESC
+            int stop = Math.min(i + Long.BYTES, e);
+            for (; i < stop; i++) {
+                if (matchesPreamble(buf, i)) {
+                    return i; // found it
                 }
-                return i; // found it
             }
         }
         return -1; // not found
     }
 
+    private static boolean matchesPreamble(byte[] buf, int i) {
+        for (int j = 0; j < PREAMBLE.length; j++) {
+            if (buf[i + j] != PREAMBLE[j])
+                return false;
+        }
+        return true;
+    }
+
     /**
      * Removes the embedded console notes in the given log lines.
      *
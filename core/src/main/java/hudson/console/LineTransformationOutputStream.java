@@ -24,7 +24,6 @@
 
 package hudson.console;
 
-import hudson.util.ByteArrayOutputStream2;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -38,15 +37,25 @@ import java.io.OutputStream;
  * @since 1.349
  */
 public abstract class LineTransformationOutputStream extends OutputStream {
+    /**
+     * The largest line buffer each stream keeps between lines.
+     */
+    private static final int RETAINED = 4096;
+
     private boolean sawCR;
-    private ByteArrayOutputStream2 buf = new ByteArrayOutputStream2();
+    private byte[] buf = new byte[128];
+    private int count;
+    /**
+     * The buffer of this stream while {@link #buf} holds a line longer than {@link #RETAINED}.
+     */
+    private byte[] retained;
 
     /**
      * Returns the number of bytes currently buffered for the current line.
      * @since 2.569
      */
     public int lineBufferSize() {
-        return buf.size();
+        return count;
     }
 
     /**
@@ -65,7 +74,8 @@ public abstract class LineTransformationOutputStream extends OutputStream {
         if (sawCR && b != '\n') {
             eol();
         }
-        buf.write(b);
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
         if (b == '\n') {
             eol();
         } else if (b == '\r') {
@@ -74,22 +84,66 @@ public abstract class LineTransformationOutputStream extends OutputStream {
     }
 
     private void eol() throws IOException {
-        eol(buf.getBuffer(), buf.size());
+        eol(buf, count);
 
         // reuse the buffer under normal circumstances, but don't let the line buffer grow unbounded
-        if (buf.size() > 4096)
-            buf = new ByteArrayOutputStream2();
-        else
-            buf.reset();
+        if (buf.length > RETAINED) {
+            buf = retained;
+            retained = null;
+        }
+        count = 0;
         sawCR = false;
     }
 
+    private void ensureCapacity(int needed) {
+        if (needed <= buf.length) {
+            return;
+        }
+        byte[] grown;
+        if (needed <= RETAINED) {
+            grown = new byte[Math.min(RETAINED, Math.max(buf.length * 2, needed))];
+        } else {
+            grown = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(buf.length * 2L, needed))];
+        }
+        System.arraycopy(buf, 0, grown, 0, count);
+        if (buf.length <= RETAINED && grown.length > RETAINED) {
+            retained = buf;
+        }
+        buf = grown;
+    }
+
     @Override
     public void write(byte[] b, int off, int len) throws IOException {
         int end = off + len;
 
-        for (int i = off; i < end; i++)
-            write(b[i]);
+        // copy up to each line end at once, rather than byte by byte
+        int i = off;
+        while (i < end) {
+            if (sawCR && b[i] != '\n') {
+                eol();
+            }
+            int j = i;
+            while (j < end && b[j] != '\n' && b[j] != '\r') {
+                j++;
+            }
+            if (j == end) {
+                append(b, i, end - i);
+                return;
+            }
+            append(b, i, j + 1 - i);
+            if (b[j] == '\n') {
+                eol();
+            } else {
+                sawCR = true;
+            }
+            i = j + 1;
+        }
+    }
+
+    private void append(byte[] b, int off, int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
     }
 
     @Override
@@ -104,7 +158,7 @@ public abstract class LineTransformationOutputStream extends OutputStream {
      * actually neither flushing nor closing the stream.
      */
     public void forceEol() throws IOException {
-        if (buf.size() > 0) {
+        if (count > 0) {
             /*
                 because LargeText cuts output at the line end boundary, this is
                 possible only for the very end of the console output, if the output ends without NL.
@@ -73,6 +73,7 @@ import jenkins.model.queue.ItemDeletion;
 import jenkins.security.ExtendedReadRedaction;
 import jenkins.security.stapler.StaplerNotDispatchable;
 import jenkins.util.SystemProperties;
+import jenkins.util.io.WriteBehind;
 import jenkins.util.xml.XMLUtils;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.taskdefs.Copy;
@@ -359,6 +360,9 @@ public abstract class AbstractItem extends Actionable implements Loadable, Item,
             throw new IOException("Trying to rename an item that does not support this operation.");
         }
 
+        // pending writes would go to where files were when saved
+        WriteBehind.flushDirectory(getRootDir());
+
         // always synchronize from bigger objects first
         final ItemGroup parent = getParent();
         String oldName = this.name;
@@ -831,6 +835,7 @@ public abstract class AbstractItem extends Actionable implements Loadable, Item,
      */
     protected void performDelete() throws IOException, InterruptedException {
         getConfigFile().delete();
+        WriteBehind.discardDirectory(getRootDir());
         Util.deleteRecursive(getRootDir());
     }
 
@@ -943,7 +948,7 @@ public abstract class AbstractItem extends Actionable implements Loadable, Item,
         }
 
         Items.runWhileUpdatingByXml(() -> onLoad(getParent(), getRootDir().getName()));
-        Jenkins.get().rebuildDependencyGraphAsync();
+        Jenkins.get().rebuildDependencyGraphAsync(this);
 
         // if everything went well, re-serialize from memory to encrypt secrets submitted in plaintext
         configXmlFile.write(this);
@@ -973,7 +978,7 @@ public abstract class AbstractItem extends Actionable implements Loadable, Item,
         // try to reflect the changes by reloading
         getConfigFile().unmarshal(this);
         Items.runWhileUpdatingByXml(() -> onLoad(getParent(), getParent().getItemName(getRootDir(), this)));
-        Jenkins.get().rebuildDependencyGraphAsync();
+        Jenkins.get().rebuildDependencyGraphAsync(this);
     }
 
 
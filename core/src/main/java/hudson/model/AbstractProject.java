@@ -780,8 +780,8 @@ public abstract class AbstractProject<P extends AbstractProject<P, R>, R extends
         // notify the queue as the project might be now tied to different node
         Jenkins.get().getQueue().scheduleMaintenance();
 
-        // this is to reflect the upstream build adjustments done above
-        Jenkins.get().rebuildDependencyGraphAsync();
+        // this is to reflect the changes to the triggers and publishers of this project
+        Jenkins.get().rebuildDependencyGraphAsync(this);
     }
 
     /**
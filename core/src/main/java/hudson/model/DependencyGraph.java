@@ -25,23 +25,37 @@
 
 package hudson.model;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.security.ACL;
 import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import jenkins.model.DependencyDeclarer;
 import jenkins.model.Jenkins;
+import jenkins.security.ImpersonatingExecutorService;
 import jenkins.util.DirectedGraph;
 import jenkins.util.DirectedGraph.SCC;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 
 /**
  * Maintains the build dependencies between {@link AbstractProject}s
@@ -60,6 +74,8 @@ import jenkins.util.DirectedGraph.SCC;
  * Once built, {@link DependencyGraph} is immutable, and every time
  * there's a change (which is relatively rare), a new instance
  * will be created. This eliminates the need of synchronization.
+ * When only a few projects changed, {@link #rebuild(Collection)} creates the new instance
+ * by asking just those projects for their edges again.
  *
  * @see Jenkins#getDependencyGraph()
  * @author Kohsuke Kawaguchi
@@ -76,25 +92,174 @@ public class DependencyGraph implements Comparator<AbstractProject> {
     private Comparator<AbstractProject<?, ?>> topologicalOrder;
     private List<AbstractProject<?, ?>> topologicallySorted;
 
+    /**
+     * Edges added by each project during {@link #build()}, in the order projects were visited,
+     * so that {@link #rebuild(Collection)} can reuse those of the projects that did not change.
+     * Null if this graph was not built that way.
+     */
+    private Map<AbstractProject, List<Dependency>> contributions;
+
+    /**
+     * While a project is adding its edges to a temporary graph, the list they are recorded in.
+     */
+    private List<Dependency> recorded;
+
+    /**
+     * Number of projects whose transitive upstream and downstream projects are each remembered once the graph is built.
+     */
+    private static final int TRANSITIVE_CACHE_SIZE = SystemProperties.getInteger(DependencyGraph.class.getName() + ".transitiveCacheSize", 256);
+
+    private final Map<AbstractProject, Set<AbstractProject>> transitiveUpstream = Collections.synchronizedMap(new TransitiveCache());
+    private final Map<AbstractProject, Set<AbstractProject>> transitiveDownstream = Collections.synchronizedMap(new TransitiveCache());
+
+    /**
+     * Number of threads asking projects for their edges during {@link #build()}.
+     * 1 or less, the default, to do it on the calling thread.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ int PARALLELISM = SystemProperties.getInteger(DependencyGraph.class.getName() + ".parallelism", 1);
+
+    /**
+     * Whether {@link #rebuild(Collection)} may only ask changed projects for their edges again, rather than doing a full {@link #build()}.
+     * Off by default, as a {@link DependencyDeclarer} could add edges based on the configuration of other projects.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ boolean INCREMENTAL = SystemProperties.getBoolean(DependencyGraph.class.getName() + ".incremental");
+
+    private static ExecutorService executor;
+
     /**
      * Builds the dependency graph.
      */
     public DependencyGraph() {
     }
 
+    /**
+     * Creates a temporary graph recording the edges added by a single project.
+     */
+    private DependencyGraph(Map<Class<?>, Object> computationalData) {
+        this.computationalData = computationalData;
+        this.recorded = new ArrayList<>();
+    }
+
     public void build() {
         // Set full privileges while computing to avoid missing any projects the current user cannot see.
         try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
-            this.computationalData = new HashMap<>();
-            for (AbstractProject p : Jenkins.get().allItems(AbstractProject.class))
-                p.buildDependencyGraph(this);
+            this.computationalData = Collections.synchronizedMap(new HashMap<>());
+            contributions = collect(Jenkins.get().allItems(AbstractProject.class));
+            finish();
+        }
+    }
+
+    /**
+     * Creates a new graph with the same edges as this one, except for those added by the given projects,
+     * which are asked for their edges again, together with the projects which had added edges to or from them.
+     * Projects being created, renamed or deleted still need a full {@link #build()}.
+     * So does any use of {@link #putComputationalData}, which is meant to be shared by all projects.
+     *
+     * @return a new, fully built graph
+     */
+    @Restricted(NoExternalUse.class)
+    public DependencyGraph rebuild(Collection<? extends AbstractProject> changed) {
+        DependencyGraph g = new DependencyGraph();
+        if (contributions == null || !INCREMENTAL) {
+            g.build();
+            return g;
+        }
+        Set<AbstractProject> changedSet = new HashSet<>(changed);
+        Set<AbstractProject> affected = new LinkedHashSet<>(changed);
+        for (Map.Entry<AbstractProject, List<Dependency>> e : contributions.entrySet()) {
+            for (Dependency dep : e.getValue()) {
+                if (changedSet.contains(dep.getUpstreamProject()) || changedSet.contains(dep.getDownstreamProject())) {
+                    affected.add(e.getKey());
+                    break;
+                }
+            }
+        }
+        try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
+            g.computationalData = Collections.synchronizedMap(new HashMap<>());
+            g.contributions = new LinkedHashMap<>(contributions);
+            Map<AbstractProject, List<Dependency>> recollected = g.collect(affected);
+            if (!g.computationalData.isEmpty()) {
+                // the data put by projects which did not change is missing
+                g = new DependencyGraph();
+                g.build();
+                return g;
+            }
+            g.contributions.putAll(recollected);
+            g.finish();
+        }
+        return g;
+    }
 
-            forward = finalize(forward);
-            backward = finalize(backward);
-            topologicalDagSort();
-            this.computationalData = null;
-            built = true;
+    /**
+     * Asks each project for the edges it adds, in parallel if there are several.
+     *
+     * @return the edges added by each project, in the iteration order of {@code projects}
+     */
+    private Map<AbstractProject, List<Dependency>> collect(Collection<? extends AbstractProject> projects) {
+        Map<AbstractProject, List<Dependency>> result = new LinkedHashMap<>();
+        if (PARALLELISM <= 1 || projects.size() <= 1) {
+            for (AbstractProject p : projects) {
+                result.put(p, collect(p));
+            }
+            return result;
+        }
+        Map<AbstractProject, Future<List<Dependency>>> futures = new LinkedHashMap<>();
+        ExecutorService executor = executor();
+        for (AbstractProject p : projects) {
+            futures.put(p, executor.submit(() -> collect(p)));
+        }
+        try {
+            for (Map.Entry<AbstractProject, Future<List<Dependency>>> e : futures.entrySet()) {
+                result.put(e.getKey(), e.getValue().get());
+            }
+        } catch (InterruptedException x) {
+            futures.values().forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building the dependency graph", x);
+        } catch (ExecutionException x) {
+            futures.values().forEach(f -> f.cancel(true));
+            if (x.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (x.getCause() instanceof Error err) {
+                throw err;
+            }
+            throw new IllegalStateException(x.getCause());
+        }
+        return result;
+    }
+
+    private List<Dependency> collect(AbstractProject p) {
+        DependencyGraph part = new DependencyGraph(computationalData);
+        p.buildDependencyGraph(part);
+        return part.recorded;
+    }
+
+    private static synchronized ExecutorService executor() {
+        if (executor == null) {
+            ThreadPoolExecutor base = new ThreadPoolExecutor(PARALLELISM, PARALLELISM, 5L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), new NamingThreadFactory(new DaemonThreadFactory(), "DependencyGraph.build"));
+            base.allowCoreThreadTimeOut(true);
+            // same privileges as the thread calling build()
+            executor = new ImpersonatingExecutorService(base, ACL.SYSTEM2);
+        }
+        return executor;
+    }
+
+    private void finish() {
+        for (List<Dependency> deps : contributions.values()) {
+            for (Dependency dep : deps) {
+                add(forward, dep.getUpstreamProject(), dep);
+                add(backward, dep.getDownstreamProject(), dep);
+            }
         }
+        forward = finalize(forward);
+        backward = finalize(backward);
+        topologicalDagSort();
+        this.computationalData = null;
+        built = true;
     }
 
     /**
@@ -231,6 +396,10 @@ public class DependencyGraph implements Comparator<AbstractProject> {
     public void addDependency(Dependency dep) {
         if (built)
             throw new IllegalStateException();
+        if (recorded != null) {
+            recorded.add(dep);
+            return;
+        }
         add(forward, dep.getUpstreamProject(), dep);
         add(backward, dep.getDownstreamProject(), dep);
     }
@@ -292,14 +461,41 @@ public class DependencyGraph implements Comparator<AbstractProject> {
      * Gets all the direct and indirect upstream dependencies of the given project.
      */
     public Set<AbstractProject> getTransitiveUpstream(AbstractProject src) {
-        return getTransitive(backward, src, true);
+        return getTransitive(transitiveUpstream, backward, src, true);
     }
 
     /**
      * Gets all the direct and indirect downstream dependencies of the given project.
      */
     public Set<AbstractProject> getTransitiveDownstream(AbstractProject src) {
-        return getTransitive(forward, src, false);
+        return getTransitive(transitiveDownstream, forward, src, false);
+    }
+
+    private Set<AbstractProject> getTransitive(Map<AbstractProject, Set<AbstractProject>> cache, Map<AbstractProject, List<DependencyGroup>> direction, AbstractProject src, boolean up) {
+        if (!built) {
+            return getTransitive(direction, src, up);
+        }
+        Set<AbstractProject> r = cache.get(src);
+        if (r == null) {
+            r = getTransitive(direction, src, up);
+            cache.put(src, r);
+        }
+        // callers may modify the result
+        return new HashSet<>(r);
+    }
+
+    /**
+     * Remembers the transitive dependencies of the projects most recently asked about.
+     */
+    private static final class TransitiveCache extends LinkedHashMap<AbstractProject, Set<AbstractProject>> {
+        TransitiveCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<AbstractProject, Set<AbstractProject>> eldest) {
+            return size() > TRANSITIVE_CACHE_SIZE;
+        }
     }
 
     private Set<AbstractProject> getTransitive(Map<AbstractProject, List<DependencyGroup>> direction, AbstractProject src, boolean up) {
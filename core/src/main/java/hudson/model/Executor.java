@@ -33,6 +33,7 @@ import static java.util.logging.Level.WARNING;
 import com.google.common.annotations.VisibleForTesting;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.FilePath;
 import hudson.Functions;
 import hudson.Util;
@@ -68,6 +69,7 @@ import jenkins.model.Jenkins;
 import jenkins.model.queue.AsynchronousExecution;
 import jenkins.security.QueueItemAuthenticatorConfiguration;
 import jenkins.security.QueueItemAuthenticatorDescriptor;
+import jenkins.util.SystemProperties;
 import net.jcip.annotations.GuardedBy;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.DoNotUse;
@@ -135,6 +137,21 @@ public class Executor extends Thread implements ModelObject, IExecutor {
     @GuardedBy("lock")
     private boolean started;
 
+    /**
+     * If true, executors run their work on a virtual thread instead of starting themselves as a platform thread.
+     * The {@link Executor} remains a {@link Thread} for compatibility but is never started,
+     * so code running on behalf of an executor must use {@link #currentExecutor()}
+     * rather than checking whether {@link Thread#currentThread()} is an {@link Executor}.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ boolean VIRTUAL_THREADS = SystemProperties.getBoolean(Executor.class.getName() + ".virtualThreads");
+
+    /**
+     * The virtual thread running the work, if {@link #VIRTUAL_THREADS} was enabled when this executor was started.
+     */
+    private volatile Thread worker;
+
     /**
      * When the executor is interrupted, we allow the code that interrupted the thread to override the
      * result code it prefers.
@@ -157,7 +174,7 @@ public class Executor extends Thread implements ModelObject, IExecutor {
 
     @Override
     public void interrupt() {
-        if (Thread.currentThread() == this) {
+        if (Thread.currentThread() == this || Thread.currentThread() == worker) {
             // If you catch an InterruptedException the "correct" options are limited to one of two choices:
             //   1. Propagate the exception;
             //   2. Restore the Thread.currentThread().interrupted() flag
@@ -181,7 +198,7 @@ public class Executor extends Thread implements ModelObject, IExecutor {
             // incorrect, then the Run.execute's catch (InterruptedException) block will either set the result
             // or have been escaped - in which case the result of the run has been sealed anyway so it does not
             // matter.
-            super.interrupt();
+            interruptThread();
         } else {
             interrupt(Result.ABORTED);
         }
@@ -240,13 +257,37 @@ public class Executor extends Thread implements ModelObject, IExecutor {
             if (asynchronousExecution != null) {
                 asynchronousExecution.interrupt(forShutdown);
             } else {
-                super.interrupt();
+                interruptThread();
             }
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    /**
+     * Interrupts whichever thread runs the work.
+     */
+    private void interruptThread() {
+        Thread w = worker;
+        if (w != null) {
+            w.interrupt();
+        } else {
+            super.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isInterrupted() {
+        Thread w = worker;
+        return w != null ? w.isInterrupted() : super.isInterrupted();
+    }
+
+    @Override
+    public StackTraceElement[] getStackTrace() {
+        Thread w = worker;
+        return w != null ? w.getStackTrace() : super.getStackTrace();
+    }
+
     public Result abortResult() {
         // this method is almost always called as a result of the current thread being interrupted
         // as a result we need to clean the interrupt flag so that the lock's lock method doesn't
@@ -441,6 +482,10 @@ public class Executor extends Thread implements ModelObject, IExecutor {
                 }
 
                 setName(getName() + " : executing " + executable);
+                Thread w = worker;
+                if (w != null) {
+                    w.setName(getName());
+                }
                 Authentication auth = workUnit.context.item.authenticate2();
                 LOGGER.log(FINE, "{0} is now executing {1} as {2}", new Object[] {getName(), executable, auth});
                 if (LOGGER.isLoggable(FINE) && auth.equals(ACL.SYSTEM2)) { // i.e., unspecified
@@ -647,7 +692,8 @@ public class Executor extends Thread implements ModelObject, IExecutor {
     public boolean isActive() {
         lock.readLock().lock();
         try {
-            return !started || asynchronousExecution != null || isAlive();
+            Thread w = worker;
+            return !started || asynchronousExecution != null || (w != null ? w.isAlive() : isAlive());
         } finally {
             lock.readLock().unlock();
         }
@@ -811,13 +857,26 @@ public class Executor extends Thread implements ModelObject, IExecutor {
         lock.writeLock().lock();
         try {
             this.workUnit = task;
-            super.start();
+            if (VIRTUAL_THREADS) {
+                // run() cannot get past the lock we hold before worker is set
+                worker = Thread.ofVirtual().name(getName()).start(this::runOnWorker);
+            } else {
+                super.start();
+            }
             started = true;
         } finally {
             lock.writeLock().unlock();
         }
     }
 
+    private void runOnWorker() {
+        WORKER.set(this);
+        try {
+            run();
+        } finally {
+            WORKER.remove();
+        }
+    }
 
     /**
      * @deprecated as of 1.489
@@ -946,9 +1005,20 @@ public class Executor extends Thread implements ModelObject, IExecutor {
      * Returns the executor of the current thread or null if current thread is not an executor.
      */
     public static @CheckForNull Executor currentExecutor() {
+        Executor e = ofCurrentThread();
+        if (e != null) return e;
+        return IMPERSONATION.get();
+    }
+
+    /**
+     * Like {@link #currentExecutor()} but ignoring {@linkplain #newImpersonatingProxy impersonation},
+     * so only returns an executor if its work is running on the current thread.
+     */
+    @Restricted(NoExternalUse.class)
+    public static @CheckForNull Executor ofCurrentThread() {
         Thread t = Thread.currentThread();
         if (t instanceof Executor) return (Executor) t;
-        return IMPERSONATION.get();
+        return WORKER.get();
     }
 
     /**
@@ -988,5 +1058,10 @@ public class Executor extends Thread implements ModelObject, IExecutor {
      */
     private static final ThreadLocal<Executor> IMPERSONATION = new ThreadLocal<>();
 
+    /**
+     * The executor whose work the current {@linkplain #VIRTUAL_THREADS virtual thread} is running.
+     */
+    private static final ThreadLocal<Executor> WORKER = new ThreadLocal<>();
+
     private static final Logger LOGGER = Logger.getLogger(Executor.class.getName());
 }
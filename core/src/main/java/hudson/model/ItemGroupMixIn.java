@@ -25,9 +25,12 @@
 package hudson.model;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.Util;
 import hudson.XmlFile;
 import hudson.model.listeners.ItemListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
 import hudson.security.AccessControlled;
 import hudson.util.CopyOnWriteMap;
 import hudson.util.Function1;
@@ -40,20 +43,31 @@ import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
+import jenkins.model.ItemLoadTimes;
 import jenkins.model.Jenkins;
 import jenkins.security.ExtendedReadRedaction;
+import jenkins.util.SystemProperties;
 import jenkins.util.xml.XMLUtils;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerRequest2;
 import org.kohsuke.stapler.StaplerResponse;
 import org.kohsuke.stapler.StaplerResponse2;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
 import org.xml.sax.SAXException;
 
 /**
@@ -108,31 +122,92 @@ public abstract class ItemGroupMixIn {
         }
 
         File[] subdirs = modulesDir.listFiles(File::isDirectory);
-        CopyOnWriteMap.Tree<K, V> configurations = new CopyOnWriteMap.Tree<>();
-        for (File subdir : subdirs) {
-            try {
-                // Try to retain the identity of an existing child object if we can.
-                V item = (V) parent.getItem(subdir.getName());
-                if (item == null) {
-                    XmlFile xmlFile = Items.getConfigFile(subdir);
-                    if (xmlFile.exists()) {
-                        item = (V) Items.load(parent, subdir);
-                    } else {
-                        Logger.getLogger(ItemGroupMixIn.class.getName()).log(Level.WARNING, "could not find file " + xmlFile.getFile());
-                        continue;
+        Map<K, V> loaded = new ConcurrentHashMap<>();
+        ItemLoadTimes.Group progress = ItemLoadTimes.startGroup(parent.getFullName(), subdirs.length);
+        if (Jenkins.PARALLEL_LOAD && !DISABLE_PARALLEL_LOAD_CHILDREN && subdirs.length > 1) {
+            Authentication auth = Jenkins.getAuthentication2();
+            ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(subdirs.length);
+            for (File subdir : subdirs) {
+                tasks.add(ForkJoinTask.adapt(ItemLoadTimes.propagate(() -> {
+                    Thread t = Thread.currentThread();
+                    ClassLoader orig = t.getContextClassLoader();
+                    t.setContextClassLoader(contextClassLoader);
+                    try (ACLContext ctx = ACL.as2(auth)) {
+                        loadChild(parent, subdir, key, loaded);
+                    } finally {
+                        t.setContextClassLoader(orig);
+                        progress.loaded();
                     }
+                })));
+            }
+            if (ForkJoinTask.getPool() == loadPool()) {
+                // loading a nested group: let idle workers steal its children
+                ForkJoinTask.invokeAll(tasks);
+            } else {
+                loadPool().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+            }
+        } else {
+            for (File subdir : subdirs) {
+                loadChild(parent, subdir, key, loaded);
+                progress.loaded();
+            }
+        }
+        progress.finish();
+
+        CopyOnWriteMap.Tree<K, V> configurations = new CopyOnWriteMap.Tree<>();
+        configurations.replaceBy(loaded);
+        return configurations;
+    }
+
+    private static <K, V extends Item> void loadChild(ItemGroup parent, File subdir, Function1<? extends K, ? super V> key, Map<K, V> loaded) {
+        try {
+            // Try to retain the identity of an existing child object if we can.
+            V item = (V) parent.getItem(subdir.getName());
+            if (item == null) {
+                XmlFile xmlFile = Items.getConfigFile(subdir);
+                if (xmlFile.exists()) {
+                    item = (V) Items.load(parent, subdir);
                 } else {
-                    item.onLoad(parent, subdir.getName());
+                    Logger.getLogger(ItemGroupMixIn.class.getName()).log(Level.WARNING, "could not find file " + xmlFile.getFile());
+                    return;
                 }
-                configurations.put(key.call(item), item);
-            } catch (Exception e) {
-                Logger.getLogger(ItemGroupMixIn.class.getName()).log(Level.WARNING, "could not load " + subdir, e);
+            } else {
+                item.onLoad(parent, subdir.getName());
             }
+            loaded.put(key.call(item), item);
+        } catch (Exception e) {
+            Logger.getLogger(ItemGroupMixIn.class.getName()).log(Level.WARNING, "could not load " + subdir, e);
         }
+    }
 
-        return configurations;
+    /**
+     * Escape hatch to load the children of each item group one after the other, as before,
+     * while top level items are still loaded in parallel according to {@link Jenkins#PARALLEL_LOAD}.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ boolean DISABLE_PARALLEL_LOAD_CHILDREN = SystemProperties.getBoolean(ItemGroupMixIn.class.getName() + ".disableParallelLoadChildren");
+
+    private static ForkJoinPool loadPool;
+
+    /**
+     * Pool shared by all {@link #loadChildren} calls, so that the children of nested groups are loaded by whichever workers are idle.
+     */
+    private static synchronized ForkJoinPool loadPool() {
+        if (loadPool == null) {
+            loadPool = new ForkJoinPool(LOAD_PARALLELISM, pool -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("Loading items #" + t.getPoolIndex());
+                return t;
+            }, null, false);
+        }
+        return loadPool;
     }
 
+    private static final int LOAD_PARALLELISM = SystemProperties.getInteger(ItemGroupMixIn.class.getName() + ".loadParallelism",
+            Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+
     /**
      * {@link Item} → name function.
      */
@@ -51,10 +51,12 @@ import java.util.Stack;
 import java.util.StringTokenizer;
 import java.util.function.Predicate;
 import jenkins.model.DirectlyModifiableTopLevelItemGroup;
+import jenkins.model.ItemLoadTimes;
 import jenkins.model.Jenkins;
 import jenkins.util.MemoryReductionUtil;
 import jenkins.util.ThrowingCallable;
 import jenkins.util.ThrowingRunnable;
+import jenkins.util.io.WriteBehind;
 import org.apache.commons.io.FileUtils;
 import org.springframework.security.core.Authentication;
 
@@ -405,9 +407,14 @@ public class Items {
      *      The directory that contains the config file, not the config file itself.
      */
     public static Item load(ItemGroup parent, File dir) throws IOException {
-        Item item = (Item) getConfigFile(dir).read();
-        item.onLoad(parent, parent.getItemName(dir, item));
-        return item;
+        ItemLoadTimes.Timer timer = ItemLoadTimes.start(dir);
+        try {
+            Item item = (Item) getConfigFile(dir).read();
+            item.onLoad(parent, parent.getItemName(dir, item));
+            return item;
+        } finally {
+            timer.stop();
+        }
     }
 
     /**
@@ -609,6 +616,7 @@ public class Items {
         // TODO AbstractItem.renameTo has a more baroque implementation; factor it out into a utility method perhaps?
         File destDir = destination.getRootDirFor(item);
         FileUtils.forceMkdir(destDir.getParentFile());
+        WriteBehind.flushDirectory(item.getRootDir());
         FileUtils.moveDirectory(item.getRootDir(), destDir);
         oldParent.remove(item);
         I newItem = destination.add(item, name);
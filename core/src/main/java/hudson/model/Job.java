@@ -110,6 +110,7 @@ import jenkins.scm.RunWithSCM;
 import jenkins.security.HexStringConfidentialKey;
 import jenkins.security.stapler.StaplerNotDispatchable;
 import jenkins.triggers.SCMTriggerItem;
+import jenkins.util.io.WriteBehind;
 import jenkins.widgets.HasWidgets;
 import net.sf.json.JSONException;
 import net.sf.json.JSONObject;
@@ -709,6 +710,7 @@ public abstract class Job<JobT extends Job<JobT, RunT>, RunT extends Run<JobT, R
     @Override
     public void renameTo(String newName) throws IOException {
         File oldBuildDir = getBuildDir();
+        WriteBehind.flushDirectory(oldBuildDir);
         super.renameTo(newName);
         File newBuildDir = getBuildDir();
         if (Files.isDirectory(Util.fileToPath(oldBuildDir)) && !Files.isDirectory(Util.fileToPath(newBuildDir))) {
@@ -723,12 +725,14 @@ public abstract class Job<JobT extends Job<JobT, RunT>, RunT extends Run<JobT, R
         super.movedTo(destination, newItem, destDir);
         File newBuildDir = getBuildDir();
         if (oldBuildDir.isDirectory()) {
+            WriteBehind.flushDirectory(oldBuildDir);
             FileUtils.moveDirectory(oldBuildDir, newBuildDir);
         }
     }
 
     @Override public void delete() throws IOException, InterruptedException {
         super.delete();
+        WriteBehind.discardDirectory(getBuildDir());
         Util.deleteRecursive(getBuildDir());
     }
 
@@ -752,6 +756,7 @@ public abstract class Job<JobT extends Job<JobT, RunT>, RunT extends Run<JobT, R
                             File oldDir = new File(oldBuildsDir);
                             if (oldDir.isDirectory()) {
                                 try {
+                                    WriteBehind.flushDirectory(oldDir);
                                     FileUtils.moveDirectory(oldDir, newBuildDir);
                                 } catch (IOException e) {
                                     LOGGER.log(Level.SEVERE, String.format("Failed to move %s to %s", oldBuildsDir, newBuildDir.getAbsolutePath()), e);
@@ -780,7 +785,25 @@ public abstract class Job<JobT extends Job<JobT, RunT>, RunT extends Run<JobT, R
     @Exported(name = "allBuilds", visibility = -2)
     @WithBridgeMethods(List.class)
     public RunList<RunT> getBuilds() {
-        return RunList.fromRuns(_getRuns().values());
+        SortedMap<Integer, ? extends RunT> runs = _getRuns();
+        if (runs instanceof RunMap<?> runMap) {
+            return RunList.fromRunMap(runMap);
+        }
+        return RunList.fromRuns(runs.values());
+    }
+
+    /**
+     * Like {@link #getBuilds()}, but completed builds which are not in memory
+     * may be represented by their {@link jenkins.model.lazy.BuildSummary} rather than loaded,
+     * and other builds are loaded in the background ahead of being reached.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressWarnings("unchecked")
+    public Iterable<HistoricalBuild> getHistoricalBuilds() {
+        if (_getRuns() instanceof RunMap<?> runs) {
+            return runs.getHistoricalBuildsPrefetching();
+        }
+        return (Iterable<HistoricalBuild>) (Iterable<? extends HistoricalBuild>) getBuilds();
     }
 
     /**
@@ -63,6 +63,7 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
@@ -70,12 +71,15 @@ import java.util.stream.StreamSupport;
 import jenkins.model.IComputer;
 import jenkins.model.Jenkins;
 import jenkins.model.ModelObjectWithChildren;
+import jenkins.model.labels.CompiledLabelExpression;
+import jenkins.model.labels.LabelBitSet;
 import jenkins.util.antlr.JenkinsANTLRErrorListener;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.Beta;
 import org.kohsuke.accmod.restrictions.DoNotUse;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.StaplerRequest2;
 import org.kohsuke.stapler.StaplerResponse2;
 import org.kohsuke.stapler.export.Exported;
@@ -98,6 +102,10 @@ public abstract class Label extends Actionable implements Comparable<Label>, Mod
     private transient volatile Set<Node> nodes;
     private transient volatile Set<Cloud> clouds;
     private transient volatile int tiedJobsCount;
+    /**
+     * Lazily {@linkplain CompiledLabelExpression#compile compiled} form of this label; empty if it cannot be compiled.
+     */
+    private transient volatile Optional<CompiledLabelExpression> compiled;
 
     @Exported
     @NonNull
@@ -176,6 +184,10 @@ public abstract class Label extends Actionable implements Comparable<Label>, Mod
      * {@link LabelAtom}s.
      */
     public final boolean matches(final Collection<LabelAtom> labels) {
+        CompiledLabelExpression c = getCompiled();
+        if (c != null) {
+            return c.matches(LabelBitSet.of(labels));
+        }
         return matches(name -> {
             for (LabelAtom a : labels)
                 if (a.getName().equals(name))
@@ -184,8 +196,26 @@ public abstract class Label extends Actionable implements Comparable<Label>, Mod
         });
     }
 
+    /**
+     * Like {@link #matches(Collection)}, for a set of atoms that is checked against many labels.
+     */
+    @Restricted(NoExternalUse.class)
+    public final boolean matches(@NonNull LabelBitSet labels) {
+        CompiledLabelExpression c = getCompiled();
+        return c != null ? c.matches(labels) : matches(labels.getAtoms());
+    }
+
+    @CheckForNull
+    private CompiledLabelExpression getCompiled() {
+        Optional<CompiledLabelExpression> c = compiled;
+        if (c == null) {
+            compiled = c = Optional.ofNullable(CompiledLabelExpression.compile(this));
+        }
+        return c.orElse(null);
+    }
+
     public final boolean matches(Node n) {
-        return matches(n.getAssignedLabels());
+        return matches(n.getAssignedLabelBitSet());
     }
 
     /**
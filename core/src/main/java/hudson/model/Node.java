@@ -30,12 +30,15 @@ import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.BulkChange;
+import hudson.ExtensionListListener;
 import hudson.ExtensionPoint;
 import hudson.FilePath;
 import hudson.FileSystemProvisioner;
 import hudson.Launcher;
 import hudson.Util;
 import hudson.XmlFile;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
 import hudson.model.Descriptor.FormException;
 import hudson.model.Queue.Task;
 import hudson.model.labels.LabelAtom;
@@ -64,11 +67,13 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jenkins.model.Jenkins;
 import jenkins.model.Nodes;
+import jenkins.model.labels.LabelBitSet;
 import jenkins.util.Listeners;
 import jenkins.util.SystemProperties;
 import jenkins.util.io.OnMaster;
@@ -120,6 +125,20 @@ public abstract class Node extends AbstractModelObject implements Reconfigurable
 
     private transient Nodes parent;
 
+    /** Caches {@link #getAssignedLabelBitSet}. */
+    private transient volatile AssignedLabelBits assignedLabelBits;
+
+    /** Whether each type of node overrides {@link #getAssignedLabels}, in which case {@link #assignedLabelBits} is not used. */
+    private static final ClassValue<Boolean> ASSIGNED_LABELS_OVERRIDDEN = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return Util.isOverridden(Node.class, type, "getAssignedLabels");
+        }
+    };
+
+    /** Incremented whenever {@link LabelFinder}s may find other labels than those in {@link #assignedLabelBits}. */
+    private static final AtomicInteger dynamicLabelsGeneration = new AtomicInteger();
+
     @Override
     public String getDisplayName() {
         return getNodeName(); // default implementation
@@ -336,10 +355,63 @@ public abstract class Node extends AbstractModelObject implements Reconfigurable
 
     @Exported
     public Set<LabelAtom> getAssignedLabels() {
-        Set<LabelAtom> r = new HashSet<>(getLabelAtomSet());
-        r.add(getSelfLabel());
+        return Collections.unmodifiableSet(computeAssignedLabelBits().labels);
+    }
+
+    /**
+     * Like {@link #getAssignedLabels}, for checking many labels against this node.
+     * The result is reused for as long as the configured labels stay the same,
+     * and until {@link #getAssignedLabels} or {@link #resetDynamicLabels} is called, as labels found by {@link LabelFinder}s may have changed then.
+     */
+    @NonNull
+    @Restricted(NoExternalUse.class)
+    public LabelBitSet getAssignedLabelBitSet() {
+        if (ASSIGNED_LABELS_OVERRIDDEN.get(getClass())) {
+            return LabelBitSet.of(getAssignedLabels());
+        }
+        AssignedLabelBits b = assignedLabelBits;
+        if (b == null || !b.matches(getLabelAtomSet(), getSelfLabel(), dynamicLabelsGeneration.get())) {
+            b = computeAssignedLabelBits();
+        }
+        return b.bits;
+    }
+
+    private AssignedLabelBits computeAssignedLabelBits() {
+        int generation = dynamicLabelsGeneration.get();
+        Set<LabelAtom> atoms = getLabelAtomSet();
+        LabelAtom self = getSelfLabel();
+        Set<LabelAtom> r = new HashSet<>(atoms);
+        r.add(self);
         r.addAll(getDynamicLabels());
-        return Collections.unmodifiableSet(r);
+        AssignedLabelBits b = new AssignedLabelBits(atoms, self, generation, r, LabelBitSet.of(r));
+        assignedLabelBits = b;
+        return b;
+    }
+
+    /**
+     * Makes all nodes ask {@link LabelFinder}s for their labels again the next time they are matched against labels.
+     */
+    @Restricted(NoExternalUse.class)
+    public static void resetDynamicLabels() {
+        dynamicLabelsGeneration.incrementAndGet();
+    }
+
+    @Initializer(after = InitMilestone.EXTENSIONS_AUGMENTED)
+    @Restricted(NoExternalUse.class)
+    public static void resetDynamicLabelsWhenLabelFindersChange() {
+        LabelFinder.all().addListener(new ExtensionListListener() {
+            @Override
+            public void onChange() {
+                resetDynamicLabels();
+            }
+        });
+    }
+
+    private record AssignedLabelBits(Set<LabelAtom> atoms, LabelAtom self, int generation, Set<LabelAtom> labels, LabelBitSet bits) {
+        boolean matches(Set<LabelAtom> atoms, LabelAtom self, int generation) {
+            // the configured atoms are usually cached by the node, and only replaced when its label string changes
+            return this.generation == generation && (this.atoms == atoms || this.atoms.equals(atoms)) && this.self.equals(self);
+        }
     }
 
     /**
@@ -63,6 +63,7 @@ import hudson.model.queue.QueueListener;
 import hudson.model.queue.QueueSorter;
 import hudson.model.queue.QueueTaskDispatcher;
 import hudson.model.queue.QueueTaskFuture;
+import hudson.model.queue.ScheduleRequest;
 import hudson.model.queue.ScheduleResult;
 import hudson.model.queue.ScheduleResult.Created;
 import hudson.model.queue.SubTask;
@@ -94,6 +95,7 @@ import java.util.Collections;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -102,8 +104,10 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -115,8 +119,11 @@ import jenkins.model.FullyNamedModelObject;
 import jenkins.model.Jenkins;
 import jenkins.model.queue.AsynchronousExecution;
 import jenkins.model.queue.CompositeCauseOfBlockage;
+import jenkins.model.queue.LabelIndex;
 import jenkins.model.queue.QueueIdStrategy;
 import jenkins.model.queue.QueueItem;
+import jenkins.model.queue.QueueJournal;
+import jenkins.model.queue.QueueMetrics;
 import jenkins.security.QueueItemAuthenticator;
 import jenkins.security.QueueItemAuthenticatorProvider;
 import jenkins.security.stapler.StaplerAccessibleType;
@@ -282,6 +289,7 @@ public class Queue extends ResourceController implements Saveable {
                 return reason;
             }
             for (QueueTaskDispatcher d : QueueTaskDispatcher.all()) {
+                long start = System.nanoTime();
                 try {
                     reason = d.canTake(node, item);
                 } catch (Throwable t) {
@@ -289,6 +297,7 @@ public class Queue extends ResourceController implements Saveable {
                     LOGGER.log(Level.WARNING, t, () -> String.format("Exception evaluating if the node '%s' can take the task '%s'", node.getNodeName(), item.task.getName()));
                     reason = CauseOfBlockage.fromMessage(Messages._Queue_ExceptionCanTake());
                 }
+                QueueMetrics.get().dispatched(d, true, start, reason != null);
 
                 if (reason != null) {
                     return reason;
@@ -334,10 +343,53 @@ public class Queue extends ResourceController implements Saveable {
 
     private transient volatile QueueSorter sorter;
 
+    /**
+     * If true, maintenance passes that the queue schedules for itself (new items, folded actions, the periodic
+     * {@link MaintainTask}) only re-evaluate {@link #dirtyItems} rather than every blocked and buildable item.
+     * Calls to {@link #scheduleMaintenance()} or {@link #maintain()} as well as the passage of
+     * {@link #FULL_MAINTENANCE_INTERVAL} still result in a full rescan.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ boolean INCREMENTAL_MAINTENANCE = SystemProperties.getBoolean(Queue.class.getName() + ".incrementalMaintenance");
+
+    /**
+     * When {@link #INCREMENTAL_MAINTENANCE} is enabled, the longest time in milliseconds between two full rescans of the queue.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ long FULL_MAINTENANCE_INTERVAL = SystemProperties.getLong(Queue.class.getName() + ".fullMaintenanceInterval", TimeUnit.SECONDS.toMillis(30));
+
+    /**
+     * Escape hatch to offer buildable items to every parked executor again,
+     * rather than only to those whose node is in the item's {@linkplain BuildableItem#getAssignedLabel() assigned label}.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ boolean DISABLE_LABEL_INDEX = SystemProperties.getBoolean(Queue.class.getName() + ".disableLabelIndex");
+
+    /**
+     * If true, items entering and leaving the queue are appended to a {@link QueueJournal} next to the queue file,
+     * instead of {@link Saver} rewriting the whole queue.
+     * The queue is then only saved in full once the journal grows past {@link #JOURNAL_COMPACTION_THRESHOLD} records,
+     * and on shutdown.
+     * Records are serialized and written by a background thread, not while holding the queue lock.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ boolean JOURNAL = SystemProperties.getBoolean(Queue.class.getName() + ".journal");
+
+    /**
+     * Number of {@link #JOURNAL} records after which the queue is saved in full in the background and the journal discarded.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ int JOURNAL_COMPACTION_THRESHOLD = SystemProperties.getInteger(Queue.class.getName() + ".journalCompactionThreshold", 1000);
+
     private final transient AtmostOneTaskExecutor<Void> maintainerThread = new AtmostOneTaskExecutor<>(new Callable<>() {
         @Override
         public Void call() throws Exception {
-            maintain();
+            maintain(false);
             return null;
         }
 
@@ -351,6 +403,48 @@ public class Queue extends ResourceController implements Saveable {
 
     private final transient Condition condition = lock.newCondition();
 
+    /**
+     * IDs of items whose scheduling may have changed since the last {@link #maintain} pass,
+     * such as newly scheduled items, items whose actions were folded, and items that became buildable.
+     */
+    @GuardedBy("lock")
+    private final transient Set<Long> dirtyItems = new HashSet<>();
+
+    /**
+     * Set by {@link #scheduleMaintenance()} when something other than a queue item changed
+     * (executors, nodes, running builds, dispatchers), which requires a full rescan.
+     */
+    private final transient AtomicBoolean fullMaintenanceRequested = new AtomicBoolean(true);
+
+    @GuardedBy("lock")
+    private transient long lastFullMaintenance;
+
+    private final transient Object journalLock = new Object();
+
+    @GuardedBy("journalLock")
+    private transient QueueJournal journal;
+
+    /**
+     * {@link #JOURNAL} records not written yet: a {@link State} for items entering the queue, or the id of an item leaving it.
+     * Only added to while holding {@link #lock}, so that {@link #save} can tell which ones it covers.
+     */
+    private final transient ConcurrentLinkedQueue<Object> pendingJournal = new ConcurrentLinkedQueue<>();
+
+    private final transient AtmostOneTaskExecutor<Void> journalWriter = new AtmostOneTaskExecutor<>(new Callable<>() {
+        @Override
+        public Void call() throws Exception {
+            writeJournal();
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return "Jenkins queue journal writer";
+        }
+    });
+
+    private final transient AtomicBoolean compactionScheduled = new AtomicBoolean();
+
     public Queue(@NonNull LoadBalancer loadBalancer) {
         this.loadBalancer =  loadBalancer.sanitize();
         // if all the executors are busy doing something, then the queue won't be maintained in
@@ -406,24 +500,46 @@ public class Queue extends ResourceController implements Saveable {
             pendings.clear();
 
             File queueFile = getXMLQueueFile();
-            if (Files.exists(queueFile.toPath())) {
+            boolean queueFileExists = Files.exists(queueFile.toPath());
+            State state = null;
+            if (queueFileExists) {
                 Object unmarshaledObj = new XmlFile(XSTREAM, queueFile).read();
-                List items;
 
-                State state;
                 if (unmarshaledObj instanceof State) {
                     state = (State) unmarshaledObj;
-                    items = state.items;
                 } else {
                     // backward compatibility - it's an old List queue.xml
-                    items = (List) unmarshaledObj;
+                    List items = (List) unmarshaledObj;
                     state = new State();
                     state.items.addAll(items);
                 }
+            }
+            if (JOURNAL) {
+                // changes since the queue file was written, if we did not shut down cleanly
+                writeJournal();
+                State s = state != null ? state : new State();
+                synchronized (journalLock) {
+                    QueueJournal j = getJournal();
+                    if (queueFileExists && j.getFile().lastModified() < queueFile.lastModified()) {
+                        // left over from before the queue file was written, such as while the journal was disabled
+                        LOGGER.log(Level.FINE, "Ignoring {0} older than {1}", new Object[] {j.getFile(), queueFile});
+                    } else {
+                        try {
+                            if (j.replay(s) > 0) {
+                                LOGGER.log(Level.INFO, "Replayed {0} records of {1}", new Object[] {j.size(), j.getFile()});
+                                state = s;
+                            }
+                        } catch (IOException e) {
+                            LOGGER.log(Level.WARNING, "Failed to replay the queue journal " + j.getFile(), e);
+                        }
+                    }
+                }
+            }
+            if (state != null) {
                 QueueIdStrategy.get().load(state);
 
 
-                for (Object o : items) {
+                for (Object o : (List) state.items) {
                     if (o instanceof Task) {
                         // backward compatibility
                         schedule((Task) o, 0);
@@ -441,7 +557,8 @@ public class Queue extends ResourceController implements Saveable {
                         }
                     }
                 }
-
+            }
+            if (queueFileExists) {
                 // I just had an incident where all the executors are dead at AbstractProject._getRuns()
                 // because runs is null. Debugger revealed that this is caused by a MatrixConfiguration
                 // object that doesn't appear to be de-serialized properly.
@@ -450,6 +567,10 @@ public class Queue extends ResourceController implements Saveable {
                 File bk = new File(queueFile.getPath() + ".bak");
                 Files.move(queueFile.toPath(), bk.toPath(), StandardCopyOption.REPLACE_EXISTING);
             }
+            if (JOURNAL) {
+                // the queue file is gone, so the journal must now hold everything loaded
+                rewriteJournal();
+            }
         } catch (IOException | InvalidPathException e) {
             LOGGER.log(Level.WARNING, "Failed to load the queue file " + getXMLQueueFile(), e);
         } finally { updateSnapshot(); } } finally {
@@ -481,6 +602,8 @@ public class Queue extends ResourceController implements Saveable {
 
             try {
                 queueFile.write(state);
+                // whether or not JOURNAL is enabled now, any journal predates what was just written
+                discardJournal();
             } catch (IOException e) {
                 LOGGER.log(e instanceof ClosedByInterruptException ? Level.FINE : Level.WARNING, "Failed to write out the queue file " + getXMLQueueFile(), e);
             }
@@ -490,6 +613,101 @@ public class Queue extends ResourceController implements Saveable {
         SaveableListener.fireOnChange(this, queueFile);
     }
 
+    @GuardedBy("journalLock")
+    private QueueJournal getJournal() {
+        if (journal == null) {
+            File queueFile = getXMLQueueFile();
+            String name = queueFile.getName();
+            journal = new QueueJournal(new File(queueFile.getParentFile(), name.substring(0, name.length() - ".xml".length()) + ".journal"), XSTREAM);
+        }
+        return journal;
+    }
+
+    /**
+     * Appends an item entering or leaving the queue to the {@link #JOURNAL}, once {@link #journalWriter} gets to it.
+     */
+    private void journal(Item item, boolean entered) {
+        if (item.task instanceof TransientTask) {
+            return;
+        }
+        lock.lock();
+        try {
+            pendingJournal.add(entered ? journalRecord(List.of(item)) : item.getId());
+        } finally {
+            lock.unlock();
+        }
+        journalWriter.submit();
+    }
+
+    /**
+     * Writes out the pending {@link #JOURNAL} records.
+     */
+    private void writeJournal() {
+        synchronized (journalLock) {
+            QueueJournal j = getJournal();
+            Object record;
+            try {
+                while ((record = pendingJournal.poll()) != null) {
+                    if (record instanceof State delta) {
+                        j.entered(delta);
+                    } else {
+                        j.left((Long) record);
+                    }
+                }
+                j.flush();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to write to the queue journal", e);
+            }
+            if (j.size() >= JOURNAL_COMPACTION_THRESHOLD && compactionScheduled.compareAndSet(false, true)) {
+                Timer.get().submit(() -> {
+                    try {
+                        save();
+                    } finally {
+                        compactionScheduled.set(false);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Drops the {@link #JOURNAL}, and any records not written yet, as the queue was just saved in full.
+     */
+    @GuardedBy("lock")
+    private void discardJournal() throws IOException {
+        pendingJournal.clear();
+        synchronized (journalLock) {
+            getJournal().reset();
+        }
+    }
+
+    /**
+     * Replaces the {@link #JOURNAL} with a single record of every item currently in the queue.
+     */
+    @GuardedBy("lock")
+    private void rewriteJournal() throws IOException {
+        List<Item> items = new ArrayList<>(waitingList);
+        items.addAll(blockedProjects);
+        items.addAll(buildables);
+        items.addAll(pendings);
+        items.removeIf(item -> item.task instanceof TransientTask);
+        discardJournal();
+        if (!items.isEmpty()) {
+            synchronized (journalLock) {
+                QueueJournal j = getJournal();
+                j.entered(journalRecord(items));
+                j.flush();
+            }
+        }
+    }
+
+    private static State journalRecord(List<Item> items) {
+        State delta = new State();
+        QueueIdStrategy.get().persist(delta);
+        delta.items.addAll(items);
+        return delta;
+    }
+
     /**
      * Wipes out all the items currently in the queue, as if all of them are cancelled at once.
      */
@@ -590,7 +808,50 @@ public class Queue extends ResourceController implements Saveable {
                 if (!h.shouldSchedule(p, actions))
                     return ScheduleResult.refused();    // veto
 
-            return scheduleInternal(p, quietPeriod, actions);
+            return scheduleInternal(p, quietPeriod, actions, true);
+        } finally { updateSnapshot(); } } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Schedules executions of many tasks at once.
+     *
+     * <p>
+     * This behaves as calling {@link #schedule2(Task, int, List)} for each request in turn,
+     * so a task requested twice is folded into the item created by the first request,
+     * but the queue is locked only once and a single maintenance pass is triggered for the whole batch.
+     *
+     * @return the result of each request, in the iteration order of {@code requests}
+     * @since TODO
+     */
+    public @NonNull List<ScheduleResult> scheduleAll(@NonNull Collection<ScheduleRequest> requests) {
+        List<ScheduleResult> results = new ArrayList<>(requests.size());
+        if (requests.isEmpty()) {
+            return results;
+        }
+        List<QueueDecisionHandler> handlers = QueueDecisionHandler.all();
+        boolean accepted = false;
+
+        lock.lock();
+        try { try {
+            requests:
+            for (ScheduleRequest r : requests) {
+                // schedule2 hands handlers a mutable copy
+                List<Action> actions = new ArrayList<>(r.getActions());
+                for (QueueDecisionHandler h : handlers) {
+                    if (!h.shouldSchedule(r.getTask(), actions)) {
+                        results.add(ScheduleResult.refused());    // veto
+                        continue requests;
+                    }
+                }
+                results.add(scheduleInternal(r.getTask(), r.getQuietPeriod(), actions, false));
+                accepted = true;
+            }
+            if (accepted) {
+                maintainerThread.submit();
+            }
+            return results;
         } finally { updateSnapshot(); } } finally {
             lock.unlock();
         }
@@ -608,8 +869,9 @@ public class Queue extends ResourceController implements Saveable {
      *      and by the time you inspect the object, some of its information can be already stale.
      *
      *      That said, one can still look at {@link WaitingItem#future}, {@link WaitingItem#getId()}, etc.
+     * @param maintain whether to trigger maintenance if the queue changed, rather than leaving that to the caller
      */
-    private @NonNull ScheduleResult scheduleInternal(Task p, int quietPeriod, List<Action> actions) {
+    private @NonNull ScheduleResult scheduleInternal(Task p, int quietPeriod, List<Action> actions, boolean maintain) {
         lock.lock();
         try { try {
             Calendar due = new GregorianCalendar();
@@ -635,7 +897,11 @@ public class Queue extends ResourceController implements Saveable {
                 // put the item in the queue
                 WaitingItem added = new WaitingItem(due, p, actions);
                 added.enter(this);
-                scheduleMaintenance();   // let an executor know that a new item is in the queue.
+                if (maintain) {
+                    scheduleMaintenance(added);   // let an executor know that a new item is in the queue.
+                } else {
+                    dirtyItems.add(added.getId());
+                }
                 return ScheduleResult.created(added);
             }
 
@@ -643,6 +909,8 @@ public class Queue extends ResourceController implements Saveable {
 
             // but let the actions affect the existing stuff.
             for (Item item : duplicatesInQueue) {
+                // the folded actions may change what QueueTaskDispatchers think of this item
+                dirtyItems.add(item.getId());
                 for (FoldableAction a : Util.filter(actions, FoldableAction.class)) {
                     a.foldIntoExisting(item, p, actions);
                     if (LOGGER.isLoggable(Level.FINE)) {
@@ -664,7 +932,7 @@ public class Queue extends ResourceController implements Saveable {
                 queueUpdated = true;
             }
 
-            if (queueUpdated) scheduleMaintenance();
+            if (queueUpdated && maintain) maintainerThread.submit();
 
             // REVISIT: when there are multiple existing items in the queue that matches the incoming one,
             // whether the new one should affect all existing ones or not is debatable. I for myself
@@ -898,23 +1166,9 @@ public class Queue extends ResourceController implements Saveable {
     }
 
     public Item getItem(long id) {
-        Snapshot snapshot = this.snapshot;
-        for (Item item : snapshot.blockedProjects) {
-            if (item.id == id)
-                return item;
-        }
-        for (Item item : snapshot.buildables) {
-            if (item.id == id)
-                return item;
-        }
-        for (Item item : snapshot.pendings) {
-            if (item.id == id)
-                return item;
-        }
-        for (Item item : snapshot.waitingList) {
-            if (item.id == id) {
-                return item;
-            }
+        Item item = snapshot.getItemsById().get(id);
+        if (item != null) {
+            return item;
         }
         return leftItems.getIfPresent(id);
     }
@@ -1030,16 +1284,7 @@ public class Queue extends ResourceController implements Saveable {
      */
     public /* @java.annotation.Nonnegative */ int countBuildableItemsFor(@CheckForNull Label l) {
         Snapshot snapshot = this.snapshot;
-        int r = 0;
-        for (BuildableItem bi : snapshot.buildables)
-            for (SubTask st : bi.task.getSubTasks())
-                if (null == l || bi.getAssignedLabelFor(st) == l)
-                    r++;
-        for (BuildableItem bi : snapshot.pendings)
-            for (SubTask st : bi.task.getSubTasks())
-                if (null == l || bi.getAssignedLabelFor(st) == l)
-                    r++;
-        return r;
+        return l == null ? snapshot.getBuildableSubTaskCount() : snapshot.getBuildableSubTaskCount(l);
     }
 
     /**
@@ -1053,17 +1298,7 @@ public class Queue extends ResourceController implements Saveable {
      * @since 1.615
      */
     public /* @java.annotation.Nonnegative */ int strictCountBuildableItemsFor(@CheckForNull Label l) {
-        Snapshot _snapshot = this.snapshot;
-        int r = 0;
-        for (BuildableItem bi : _snapshot.buildables)
-            for (SubTask st : bi.task.getSubTasks())
-                if (bi.getAssignedLabelFor(st) == l)
-                    r++;
-        for (BuildableItem bi : _snapshot.pendings)
-            for (SubTask st : bi.task.getSubTasks())
-                if (bi.getAssignedLabelFor(st) == l)
-                    r++;
-        return r;
+        return snapshot.getBuildableSubTaskCount(l);
     }
 
     /**
@@ -1079,25 +1314,8 @@ public class Queue extends ResourceController implements Saveable {
      * @return null if the project is not in the queue.
      */
     public Item getItem(Task t) {
-        Snapshot snapshot = this.snapshot;
-        for (Item item : snapshot.blockedProjects) {
-            if (item.task.equals(t))
-                return item;
-        }
-        for (Item item : snapshot.buildables) {
-            if (item.task.equals(t))
-                return item;
-        }
-        for (Item item : snapshot.pendings) {
-            if (item.task.equals(t))
-                return item;
-        }
-        for (Item item : snapshot.waitingList) {
-            if (item.task.equals(t)) {
-                return item;
-            }
-        }
-        return null;
+        List<Item> items = snapshot.getItemsByTask().get(t);
+        return items == null ? null : items.get(0);
     }
 
     /**
@@ -1136,29 +1354,8 @@ public class Queue extends ResourceController implements Saveable {
      * @return empty if the project is not in the queue.
      */
     public List<Item> getItems(Task t) {
-        Snapshot snapshot = this.snapshot;
-        List<Item> result = new ArrayList<>();
-        for (Item item : snapshot.blockedProjects) {
-            if (item.task.equals(t)) {
-                result.add(item);
-            }
-        }
-        for (Item item : snapshot.buildables) {
-            if (item.task.equals(t)) {
-                result.add(item);
-            }
-        }
-        for (Item item : snapshot.pendings) {
-            if (item.task.equals(t)) {
-                result.add(item);
-            }
-        }
-        for (Item item : snapshot.waitingList) {
-            if (item.task.equals(t)) {
-                result.add(item);
-            }
-        }
-        return result;
+        List<Item> items = snapshot.getItemsByTask().get(t);
+        return items == null ? new ArrayList<>() : new ArrayList<>(items);
     }
 
     /**
@@ -1197,9 +1394,20 @@ public class Queue extends ResourceController implements Saveable {
     @WithBridgeMethods(void.class)
     public Future<?> scheduleMaintenance() {
         // LOGGER.info("Scheduling maintenance");
+        fullMaintenanceRequested.set(true);
         return maintainerThread.submit();
     }
 
+    /**
+     * Like {@link #scheduleMaintenance()}, but only the given item needs to be looked at
+     * if {@link #INCREMENTAL_MAINTENANCE} is enabled.
+     */
+    @GuardedBy("lock")
+    private void scheduleMaintenance(Item item) {
+        dirtyItems.add(item.getId());
+        maintainerThread.submit();
+    }
+
     /**
      * Checks if the given item should be prevented from entering into the {@link #buildables} state
      * and instead stay in the {@link #blockedProjects} state.
@@ -1214,6 +1422,7 @@ public class Queue extends ResourceController implements Saveable {
         }
 
         for (QueueTaskDispatcher d : QueueTaskDispatcher.all()) {
+            long start = System.nanoTime();
             try {
                 causeOfBlockage = d.canRun(i);
             } catch (Throwable t) {
@@ -1221,6 +1430,7 @@ public class Queue extends ResourceController implements Saveable {
                 LOGGER.log(Level.WARNING, t, () -> String.format("Exception evaluating if the queue can run the task '%s'", i.task.getName()));
                 causeOfBlockage = CauseOfBlockage.fromMessage(Messages._Queue_ExceptionCanRun());
             }
+            QueueMetrics.get().dispatched(d, false, start, causeOfBlockage != null);
             if (causeOfBlockage != null)
                 return causeOfBlockage;
         }
@@ -1590,66 +1800,55 @@ public class Queue extends ResourceController implements Saveable {
      * Jenkins internally invokes this method by itself whenever there's a change that can affect
      * the scheduling (such as new node becoming online, # of executors change, a task completes execution, etc.),
      * and it also gets invoked periodically (see {@link Queue.MaintainTask}.)
+     *
+     * <p>
+     * This always re-evaluates every item in the queue, even if {@link #INCREMENTAL_MAINTENANCE} is enabled.
      */
     public void maintain() {
+        maintain(true);
+    }
+
+    /**
+     * @param forceFull if false and {@link #INCREMENTAL_MAINTENANCE} is enabled, only re-evaluate {@link #dirtyItems}
+     *                  unless {@link #scheduleMaintenance()} was called or {@link #FULL_MAINTENANCE_INTERVAL} elapsed
+     */
+    private void maintain(boolean forceFull) {
         Jenkins jenkins = Jenkins.getInstanceOrNull();
         if (jenkins == null) {
             return;
         }
+        QueueMetrics metrics = QueueMetrics.get();
         lock.lock();
+        final long started = System.nanoTime();
         try { try {
+            boolean fullRequested = fullMaintenanceRequested.getAndSet(false);
+            long now = System.currentTimeMillis();
+            final boolean full = forceFull || fullRequested || !INCREMENTAL_MAINTENANCE
+                    || now - lastFullMaintenance >= FULL_MAINTENANCE_INTERVAL;
+            if (full) {
+                lastFullMaintenance = now;
+            }
 
-            LOGGER.log(Level.FINE, "Queue maintenance started on {0} with {1}", new Object[] {this, snapshot});
+            LOGGER.log(Level.FINE, "Queue maintenance ({0}) started on {1} with {2}", new Object[] {full ? "full" : "incremental", this, snapshot});
 
             // The executors that are currently waiting for a job to run.
-            Map<Executor, JobOffer> parked = new HashMap<>();
-
-            { // update parked (and identify any pending items whose executor has disappeared)
-                List<BuildableItem> lostPendings = new ArrayList<>(pendings);
-                for (Computer c : jenkins.getComputers()) {
-                    for (Executor e : c.getAllExecutors()) {
-                        if (e.isInterrupted()) {
-                            // JENKINS-28840 we will deadlock if we try to touch this executor while interrupt flag set
-                            // we need to clear lost pendings as we cannot know what work unit was on this executor
-                            // while it is interrupted. (All this dancing is a result of Executor extending Thread)
-                            lostPendings.clear(); // we'll get them next time around when the flag is cleared.
-                            LOGGER.log(Level.FINEST,
-                                    "Interrupt thread for executor {0} is set and we do not know what work unit was on the executor.",
-                                    e.getDisplayName());
-                            continue;
-                        }
-                        if (e.isParking()) {
-                            LOGGER.log(Level.FINEST, "{0} is parking and is waiting for a job to execute.", e.getDisplayName());
-                            parked.put(e, new JobOffer(e));
-                        }
-                        final WorkUnit workUnit = e.getCurrentWorkUnit();
-                        if (workUnit != null) {
-                            lostPendings.remove(workUnit.context.item);
-                        }
-                    }
-                }
-                // pending -> buildable
-                for (BuildableItem p : lostPendings) {
-                    if (LOGGER.isLoggable(Level.FINE)) {
-                        LOGGER.log(Level.FINE,
-                            "BuildableItem {0}: pending -> buildable as the assigned executor disappeared",
-                            p.task.getFullDisplayName());
-                    }
-                    p.isPending = false;
-                    pendings.remove(p);
-                    var r = makeBuildable(p);
-                    if (r != null) {
-                        LOGGER.fine(() -> "Executing lost runnable " + p.task.getFullDisplayName());
-                        r.run();
-                    }
-                }
-            }
+            // An incremental pass only looks for them once it has something to allocate.
+            long phase = System.nanoTime();
+            Map<Executor, JobOffer> parked = full ? findParkedExecutors(jenkins, true) : null;
+            metrics.phase(QueueMetrics.Phase.PARKED, phase);
+            // Parked executors by the labels they serve, built on first use in this pass.
+            LabelIndex<JobOffer> offers = null;
 
             final QueueSorter s = sorter;
 
+            phase = System.nanoTime();
             { // blocked -> buildable
                 // copy as we'll mutate the list and we want to process in a potentially different order
                 List<BlockedItem> blockedItems = new ArrayList<>((blockedProjects));
+                if (!full) {
+                    // nothing changed for the other blocked items since the last pass
+                    blockedItems.removeIf(p -> !dirtyItems.contains(p.getId()));
+                }
                 // if facing a cycle of blocked tasks, ensure we process in the desired sort order
                 if (s != null) {
                     s.sortBlockedItems(blockedItems);
@@ -1676,6 +1875,7 @@ public class Queue extends ResourceController implements Saveable {
                             updateSnapshot();
                         }
                     } else {
+                        metrics.blocked(causeOfBlockage);
                         if (causeOfBlockage.isFatal()) {
                             cancel(p);
                         } else {
@@ -1687,7 +1887,10 @@ public class Queue extends ResourceController implements Saveable {
                 }
             }
 
+            metrics.phase(QueueMetrics.Phase.BLOCKED, phase);
+
             // waitingList -> buildable/blocked
+            phase = System.nanoTime();
             while (!waitingList.isEmpty()) {
                 WaitingItem top = peek();
 
@@ -1709,6 +1912,7 @@ public class Queue extends ResourceController implements Saveable {
                         new BlockedItem(top, CauseOfBlockage.fromMessage(Messages._Queue_HudsonIsAboutToShutDown())).enter(this);
                     }
                 } else {
+                    metrics.blocked(causeOfBlockage);
                     if (causeOfBlockage.isFatal()) {
                         cancel(top);
                     } else {
@@ -1720,6 +1924,9 @@ public class Queue extends ResourceController implements Saveable {
                 }
             }
 
+            metrics.phase(QueueMetrics.Phase.WAITING, phase);
+
+            phase = System.nanoTime();
             if (s != null) {
                 try {
                     s.sortBuildableItems(buildables);
@@ -1732,13 +1939,20 @@ public class Queue extends ResourceController implements Saveable {
 
             // Ensure that identification of blocked tasks is using the live state: JENKINS-27708 & JENKINS-27871
             updateSnapshot();
+            metrics.phase(QueueMetrics.Phase.SORT, phase);
 
             // allocate buildable jobs to executors
+            phase = System.nanoTime();
             for (BuildableItem p : new ArrayList<>(
                     buildables)) { // copy as we'll mutate the list in the loop
+                if (!full && !dirtyItems.contains(p.getId())) {
+                    // could not be allocated in an earlier pass, and neither executors nor this item changed since
+                    continue;
+                }
                 // one last check to make sure this build is not blocked.
                 CauseOfBlockage causeOfBlockage = getCauseOfBlockageForItem(p);
                 if (causeOfBlockage != null) {
+                    metrics.blocked(causeOfBlockage);
                     if (causeOfBlockage.isFatal()) {
                         cancel(p);
                     } else {
@@ -1763,10 +1977,18 @@ public class Queue extends ResourceController implements Saveable {
                         updateSnapshot();
                     }
                 } else {
+                    if (parked == null) {
+                        parked = findParkedExecutors(jenkins, false);
+                    }
+                    if (offers == null) {
+                        offers = new LabelIndex<>(parked.values(), JobOffer::getNode);
+                    }
 
-                    List<JobOffer> candidates = new ArrayList<>(parked.size());
+                    // Node.canTake rejects any node outside of the assigned label anyway, so do not even ask those
+                    List<JobOffer> matching = offers.get(DISABLE_LABEL_INDEX ? null : p.getAssignedLabel());
+                    List<JobOffer> candidates = new ArrayList<>(matching.size());
                     Map<Node, CauseOfBlockage> reasonMap = new HashMap<>();
-                    for (JobOffer j : parked.values()) {
+                    for (JobOffer j : matching) {
                         Node offerNode = j.getNode();
                         CauseOfBlockage reason;
                         if (reasonMap.containsKey(offerNode)) {
@@ -1824,11 +2046,67 @@ public class Queue extends ResourceController implements Saveable {
                     updateSnapshot();
                 }
             }
+            metrics.phase(QueueMetrics.Phase.ALLOCATE, phase);
         } finally { updateSnapshot(); } } finally {
+            // whatever was looked at in this pass, or became dirty during it, has been dealt with
+            dirtyItems.clear();
             lock.unlock();
+            metrics.phase(QueueMetrics.Phase.TOTAL, started);
         }
     }
 
+    /**
+     * Collects the executors that are currently waiting for a job to run.
+     *
+     * @param recoverLostPendings whether to also move any pending items whose executor has disappeared back to {@link #buildables}
+     */
+    @GuardedBy("lock")
+    private Map<Executor, JobOffer> findParkedExecutors(Jenkins jenkins, boolean recoverLostPendings) {
+        Map<Executor, JobOffer> parked = new HashMap<>();
+        List<BuildableItem> lostPendings = new ArrayList<>(pendings);
+        for (Computer c : jenkins.getComputers()) {
+            for (Executor e : c.getAllExecutors()) {
+                if (e.isInterrupted()) {
+                    // JENKINS-28840 we will deadlock if we try to touch this executor while interrupt flag set
+                    // we need to clear lost pendings as we cannot know what work unit was on this executor
+                    // while it is interrupted. (All this dancing is a result of Executor extending Thread)
+                    lostPendings.clear(); // we'll get them next time around when the flag is cleared.
+                    LOGGER.log(Level.FINEST,
+                            "Interrupt thread for executor {0} is set and we do not know what work unit was on the executor.",
+                            e.getDisplayName());
+                    continue;
+                }
+                if (e.isParking()) {
+                    LOGGER.log(Level.FINEST, "{0} is parking and is waiting for a job to execute.", e.getDisplayName());
+                    parked.put(e, new JobOffer(e));
+                }
+                final WorkUnit workUnit = e.getCurrentWorkUnit();
+                if (workUnit != null) {
+                    lostPendings.remove(workUnit.context.item);
+                }
+            }
+        }
+        if (!recoverLostPendings) {
+            return parked;
+        }
+        // pending -> buildable
+        for (BuildableItem p : lostPendings) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE,
+                    "BuildableItem {0}: pending -> buildable as the assigned executor disappeared",
+                    p.task.getFullDisplayName());
+            }
+            p.isPending = false;
+            pendings.remove(p);
+            var r = makeBuildable(p);
+            if (r != null) {
+                LOGGER.fine(() -> "Executing lost runnable " + p.task.getFullDisplayName());
+                r.run();
+            }
+        }
+        return parked;
+    }
+
     /**
      * Tries to make an item ready to build.
      * @param p a proposed buildable item
@@ -2877,6 +3155,7 @@ public class Queue extends ResourceController implements Saveable {
         @Override
         /*package*/ void enter(Queue q) {
             q.buildables.add(this);
+            q.dirtyItems.add(getId());
             Listeners.notify(QueueListener.class, true, l -> l.onEnterBuildable(this));
         }
 
@@ -3045,7 +3324,7 @@ public class Queue extends ResourceController implements Saveable {
         protected void doRun() {
             Queue q = queue.get();
             if (q != null)
-                q.maintain();
+                q.maintain(false);
             else
                 cancel();
         }
@@ -3097,12 +3376,31 @@ public class Queue extends ResourceController implements Saveable {
         }
     }
 
+    /**
+     * Immutable copy of the queue contents, published after every change so that readers never need the lock.
+     *
+     * <p>
+     * The indexes are only computed when first needed, since {@link #maintain} publishes many snapshots nobody reads.
+     * A snapshot never changes, so threads racing to compute an index at worst compute it twice.
+     */
     private static class Snapshot {
         private final Set<WaitingItem> waitingList;
         private final List<BlockedItem> blockedProjects;
         private final List<BuildableItem> buildables;
         private final List<BuildableItem> pendings;
 
+        private volatile Map<Long, Item> itemsById;
+        /**
+         * Items by {@link Item#task}, each list ordered as {@link #getItem(Task)} looks them up.
+         */
+        private volatile Map<Task, List<Item>> itemsByTask;
+        /**
+         * Number of {@link SubTask}s of {@link #buildables} and {@link #pendings} by their assigned label (which may be null).
+         * Uses identity like {@link #strictCountBuildableItemsFor}.
+         */
+        private volatile Map<Label, Integer> buildableSubTasksByLabel;
+        private volatile int buildableSubTaskCount = -1;
+
         Snapshot(Set<WaitingItem> waitingList, List<BlockedItem> blockedProjects, List<BuildableItem> buildables,
                         List<BuildableItem> pendings) {
             this.waitingList = new LinkedHashSet<>(waitingList);
@@ -3111,6 +3409,65 @@ public class Queue extends ResourceController implements Saveable {
             this.pendings = new ArrayList<>(pendings);
         }
 
+        private List<Item> all() {
+            List<Item> r = new ArrayList<>(blockedProjects.size() + buildables.size() + pendings.size() + waitingList.size());
+            r.addAll(blockedProjects);
+            r.addAll(buildables);
+            r.addAll(pendings);
+            r.addAll(waitingList);
+            return r;
+        }
+
+        Map<Long, Item> getItemsById() {
+            Map<Long, Item> r = itemsById;
+            if (r == null) {
+                r = new HashMap<>();
+                for (Item item : all()) {
+                    r.putIfAbsent(item.getId(), item);
+                }
+                itemsById = r;
+            }
+            return r;
+        }
+
+        Map<Task, List<Item>> getItemsByTask() {
+            Map<Task, List<Item>> r = itemsByTask;
+            if (r == null) {
+                r = new HashMap<>();
+                for (Item item : all()) {
+                    r.computeIfAbsent(item.task, k -> new ArrayList<>(1)).add(item);
+                }
+                itemsByTask = r;
+            }
+            return r;
+        }
+
+        int getBuildableSubTaskCount(@CheckForNull Label l) {
+            Map<Label, Integer> r = buildableSubTasksByLabel;
+            if (r == null) {
+                r = new IdentityHashMap<>();
+                int count = 0;
+                for (List<BuildableItem> list : List.of(buildables, pendings)) {
+                    for (BuildableItem bi : list) {
+                        for (SubTask st : bi.task.getSubTasks()) {
+                            r.merge(bi.getAssignedLabelFor(st), 1, Integer::sum);
+                            count++;
+                        }
+                    }
+                }
+                buildableSubTaskCount = count;
+                buildableSubTasksByLabel = r;
+            }
+            return r.getOrDefault(l, 0);
+        }
+
+        int getBuildableSubTaskCount() {
+            if (buildableSubTaskCount < 0) {
+                getBuildableSubTaskCount(null);
+            }
+            return buildableSubTaskCount;
+        }
+
         @Override
         public String toString() {
             return "Queue.Snapshot{waitingList=" + waitingList + ";blockedProjects=" + blockedProjects + ";buildables=" + buildables + ";pendings=" + pendings + "}";
@@ -3222,12 +3579,27 @@ public class Queue extends ResourceController implements Saveable {
 
         @Override
         public void onEnterWaiting(WaitingItem wi) {
-            push();
+            if (JOURNAL) {
+                journal(wi, true);
+            } else {
+                push();
+            }
         }
 
         @Override
         public void onLeft(Queue.LeftItem li) {
-            push();
+            if (JOURNAL) {
+                journal(li, false);
+            } else {
+                push();
+            }
+        }
+
+        private void journal(Item item, boolean entered) {
+            Jenkins j = Jenkins.getInstanceOrNull();
+            if (j != null) {
+                j.getQueue().journal(item, entered);
+            }
         }
 
         private void push() {
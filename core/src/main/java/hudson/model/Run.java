@@ -72,7 +72,10 @@ import hudson.util.XStream2;
 import io.jenkins.servlet.ServletExceptionWrapper;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -82,6 +85,8 @@ import java.io.PrintWriter;
 import java.io.RandomAccessFile;
 import java.io.Reader;
 import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
@@ -90,6 +95,7 @@ import java.nio.file.StandardOpenOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -97,6 +103,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.Deque;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -109,7 +116,9 @@ import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPInputStream;
+import jenkins.console.ConsoleStream;
 import jenkins.console.ConsoleUrlProvider;
+import jenkins.console.NoteFreeLog;
 import jenkins.console.WithConsoleUrl;
 import jenkins.model.ArtifactManager;
 import jenkins.model.ArtifactManagerConfiguration;
@@ -133,7 +142,10 @@ import jenkins.security.MasterToSlaveCallable;
 import jenkins.security.stapler.StaplerNotDispatchable;
 import jenkins.util.SystemProperties;
 import jenkins.util.VirtualFile;
+import jenkins.util.io.BlockGzip;
+import jenkins.util.io.LineIndex;
 import jenkins.util.io.OnMaster;
+import jenkins.util.io.WriteBehind;
 import net.sf.json.JSONObject;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.jelly.XMLOutput;
@@ -305,6 +317,11 @@ public abstract class Run<JobT extends Job<JobT, RunT>, RunT extends Run<JobT, R
      */
     private transient boolean isPendingDelete;
 
+    /**
+     * Length of the {@code build.xml} this was last loaded from, or -1 if unknown.
+     */
+    private transient long dataFileLength = -1;
+
     /**
      * Creates a new {@link Run}.
      * @param job Owner job
@@ -354,7 +371,7 @@ public abstract class Run<JobT extends Job<JobT, RunT>, RunT extends Run<JobT, R
     public void reload() throws IOException {
         this.state = State.COMPLETED;
         this.result = Result.ABORTED;  // defensive measure. value should be overwritten by unmarshal, but just in case the saved data is inconsistent
-        getDataFile().unmarshal(this); // load the rest of the data
+        getDataFile().unmarshal(this, length -> dataFileLength = length); // load the rest of the data
 
         if (state == State.COMPLETED) {
             LOGGER.log(FINER, "reload {0} @{1}", new Object[] {this, hashCode()});
@@ -1591,6 +1608,7 @@ public abstract class Run<JobT extends Job<JobT, RunT>, RunT extends Run<JobT, R
         }
 
         //The root dir exists and is a directory that needs to be purged
+        WriteBehind.discard(getDataFile());
         RunListener.fireDeleted(this);
         SaveableListener.fireOnDeleted(this, getDataFile());
 
@@ -1915,7 +1933,9 @@ public abstract class Run<JobT extends Job<JobT, RunT>, RunT extends Run<JobT, R
         // gets reflected to the file immediately, which can then be
         // served to the browser immediately
         try {
-            return Files.newOutputStream(getLogFile().toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            File logFile = getLogFile();
+            return NoteFreeLog.record(logFile,
+                    LineIndex.record(logFile, Files.newOutputStream(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
         } catch (InvalidPathException e) {
             throw new IOException(e);
         }
@@ -1990,6 +2010,7 @@ public abstract class Run<JobT extends Job<JobT, RunT>, RunT extends Run<JobT, R
             result = Result.FAILURE;
             LOGGER.log(WARNING, "{0}: No build result is set, so marking as failure. This should not happen.", this);
         }
+        updateBuildIndex();
 
         RunListener.fireFinalized(this);
     }
@@ -2000,8 +2021,29 @@ public abstract class Run<JobT extends Job<JobT, RunT>, RunT extends Run<JobT, R
     @Override
     public synchronized void save() throws IOException {
         if (BulkChange.contains(this))   return;
-        getDataFile().write(this);
-        SaveableListener.fireOnChange(this, getDataFile());
+        XmlFile dataFile = getDataFile();
+        // builds save repeatedly while running, so let those saves be coalesced
+        WriteBehind.write(dataFile, this, () -> SaveableListener.fireOnChange(this, dataFile));
+        if (state == State.COMPLETED) {
+            updateBuildIndex();
+        }
+    }
+
+    /**
+     * Records the summary of this completed build, so that it can be listed without being loaded.
+     */
+    private void updateBuildIndex() {
+        if (getParent()._getRuns() instanceof RunMap<?> runs) {
+            runs.recordCompleted(this);
+        }
+    }
+
+    /**
+     * Length of the {@code build.xml} this was loaded from, as found while reading it, or -1 if unknown.
+     */
+    @Restricted(NoExternalUse.class)
+    public long getDataFileLength() {
+        return dataFileLength;
     }
 
     private @NonNull XmlFile getDataFile() {
@@ -2050,6 +2092,11 @@ public abstract class Run<JobT extends Job<JobT, RunT>, RunT extends Run<JobT, R
             return Collections.emptyList();
         }
 
+        File logFile = getLogFile();
+        if (logFile.getName().endsWith(".gz")) {
+            return ConsoleNote.removeNotes(getCompressedLogTail(logFile, maxLines));
+        }
+
         int lines = 0;
         long filePointer;
         final List<String> lastLines = new ArrayList<>(Math.min(maxLines, 128));
@@ -2090,6 +2137,139 @@ public abstract class Run<JobT extends Job<JobT, RunT>, RunT extends Run<JobT, R
         return ConsoleNote.removeNotes(lastLines);
     }
 
+    /**
+     * Gets some lines of the log of the build.
+     * Only the log from the closest indexed line before {@code from} onwards is read.
+     *
+     * @param from the number of the first line to return, counting from 0
+     * @param maxLines the maximum number of log lines to return
+     * @return the lines, without console notes; empty if the log has no more than {@code from} lines
+     * @throws IOException if there is a problem reading the log file
+     * @since TODO
+     */
+    public @NonNull List<String> getLogLines(long from, int maxLines) throws IOException {
+        File logFile = getLogFile();
+        if (maxLines <= 0 || !logFile.exists()) {
+            return Collections.emptyList();
+        }
+        long offset = startOfLogLine(logFile, from);
+        if (offset < 0) {
+            return Collections.emptyList();
+        }
+        return ConsoleNote.removeNotes(readLogLines(logFile, offset, maxLines));
+    }
+
+    /**
+     * Opens the log at some offset of its uncompressed content.
+     */
+    private static InputStream openLogAt(File logFile, long offset) throws IOException {
+        if (logFile.getName().endsWith(".gz")) {
+            return BlockGzip.open(logFile, offset);
+        }
+        FileChannel ch = FileChannel.open(logFile.toPath(), StandardOpenOption.READ);
+        try {
+            ch.position(offset);
+        } catch (IOException x) {
+            ch.close();
+            throw x;
+        }
+        return Channels.newInputStream(ch);
+    }
+
+    /**
+     * Finds where a line of the log starts.
+     *
+     * @return -1 if the log does not have that many lines
+     */
+    private static long startOfLogLine(File logFile, long line) throws IOException {
+        long[] index = LineIndex.read(logFile);
+        int entry = (int) Math.min(line / LineIndex.LINES, index.length);
+        long current = (long) entry * LineIndex.LINES;
+        long offset = entry == 0 ? 0 : index[entry - 1];
+        if (current == line) {
+            return offset;
+        }
+        try (InputStream in = new BufferedInputStream(openLogAt(logFile, offset))) {
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b == '\n' && ++current == line) {
+                    return offset;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Implements {@link #getLog(int)} for a compressed log, which cannot be read backwards.
+     * It is decompressed once, from the last indexed line with at least {@code maxLines} lines after it,
+     * keeping the last lines read.
+     */
+    private List<String> getCompressedLogTail(File logFile, int maxLines) throws IOException {
+        long[] index = LineIndex.read(logFile);
+        int entry = Math.max(0, index.length - maxLines / LineIndex.LINES - 1);
+        long offset = entry == 0 ? 0 : index[entry - 1];
+        boolean truncated = entry > 0;
+        Deque<byte[]> lines = new ArrayDeque<>();
+        Deque<Long> starts = new ArrayDeque<>();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long position = offset;
+        try (InputStream in = new BufferedInputStream(openLogAt(logFile, offset))) {
+            int b;
+            while ((b = in.read()) != -1) {
+                position++;
+                if (b == '\n') {
+                    lines.add(line.toByteArray());
+                    starts.add(position - line.size() - 1);
+                    line.reset();
+                    if (lines.size() > maxLines) {
+                        lines.removeFirst();
+                        starts.removeFirst();
+                        truncated = true;
+                    }
+                } else {
+                    line.write(b);
+                }
+            }
+        }
+        if (line.size() > 0) {
+            lines.add(line.toByteArray());
+            starts.add(position - line.size());
+            if (lines.size() > maxLines) {
+                lines.removeFirst();
+                starts.removeFirst();
+                truncated = true;
+            }
+        }
+        List<String> lastLines = new ArrayList<>(lines.size());
+        if (truncated) {
+            // as for uncompressed logs, the first line gives way to how much was left out
+            lines.removeFirst();
+            starts.removeFirst();
+            lastLines.add("[...truncated " + Functions.humanReadableByteSize(starts.isEmpty() ? position : starts.getFirst()) + "...]");
+        }
+        for (byte[] bytes : lines) {
+            int length = bytes.length;
+            if (length > 0 && bytes[length - 1] == '\r') {
+                length--;
+            }
+            lastLines.add(new String(bytes, 0, length, getCharset()));
+        }
+        return lastLines;
+    }
+
+    private List<String> readLogLines(File logFile, long offset, int maxLines) throws IOException {
+        List<String> lines = new ArrayList<>(Math.min(maxLines, 128));
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(openLogAt(logFile, offset), getCharset()))) {
+            String line;
+            while (lines.size() < maxLines && (line = r.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
     private String convertBytesToString(List<Byte> bytes) {
         Collections.reverse(bytes);
         byte[] byteArray = new byte[bytes.size()];
@@ -2238,13 +2418,36 @@ public abstract class Run<JobT extends Job<JobT, RunT>, RunT extends Run<JobT, R
 
     private void doConsoleTextImpl(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException {
         rsp.setContentType("text/plain;charset=UTF-8");
-        try (InputStream input = getLogInputStream();
-             OutputStream os = rsp.getOutputStream();
-             PlainTextConsoleOutputStream out = new PlainTextConsoleOutputStream(os)) {
-            IOUtils.copy(input, out);
+        try (OutputStream os = rsp.getOutputStream()) {
+            // a log without notes is sent as is, unless it is not where this class stores it
+            if (!Util.isOverridden(Run.class, getClass(), "getLogInputStream") && NoteFreeLog.transferTo(getLogFile(), 0, os) >= 0) {
+                return;
+            }
+            try (InputStream input = getLogInputStream();
+                 PlainTextConsoleOutputStream out = new PlainTextConsoleOutputStream(os)) {
+                IOUtils.copy(input, out);
+            }
         }
     }
 
+    /**
+     * Whether {@link #doConsoleStream} is available, so that the console page can stream its output rather than poll for it.
+     */
+    @Restricted(NoExternalUse.class)
+    public boolean isConsoleStreamSupported() {
+        return ConsoleStream.isSupported(this);
+    }
+
+    /**
+     * Streams the annotated log of a running build over WebSocket.
+     *
+     * @param start the offset in the log to start from
+     */
+    @Restricted(NoExternalUse.class)
+    public HttpResponse doConsoleStream(StaplerRequest2 req, @QueryParameter long start) {
+        return ConsoleStream.upgrade(this, start, req);
+    }
+
     /**
      * Handles incremental log output.
      * @deprecated as of 1.352
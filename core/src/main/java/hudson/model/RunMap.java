@@ -26,6 +26,7 @@ package hudson.model;
 
 import static java.util.logging.Level.FINEST;
 
+import com.google.common.collect.Iterators;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Util;
@@ -34,6 +35,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -43,8 +45,13 @@ import java.util.SortedMap;
 import java.util.function.IntPredicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import jenkins.model.HistoricalBuild;
 import jenkins.model.lazy.AbstractLazyLoadRunMap;
+import jenkins.model.lazy.BuildIndex;
+import jenkins.model.lazy.BuildPrefetcher;
 import jenkins.model.lazy.BuildReference;
+import jenkins.model.lazy.BuildSummary;
+import jenkins.model.lazy.IndexedBuild;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
 
@@ -68,6 +75,9 @@ public final class RunMap<R extends Run<?, R>> extends AbstractLazyLoadRunMap<R>
 
     private Constructor<R> cons;
 
+    private volatile BuildIndex index;
+    private final Object indexLock = new Object();
+
     // TODO: before first complete build
     // patch up next/previous build link
 
@@ -123,9 +133,128 @@ public final class RunMap<R extends Run<?, R>> extends AbstractLazyLoadRunMap<R>
     @Override
     public boolean removeValue(R run) {
         run.dropLinks();
+        BuildIndex index = getIndex();
+        if (index != null) {
+            index.remove(run.getNumber());
+        }
         return super.removeValue(run);
     }
 
+    /**
+     * Gets the summaries of completed builds in the builds directory.
+     *
+     * @return null if this map is not associated with a job
+     */
+    @Restricted(NoExternalUse.class)
+    public @CheckForNull BuildIndex getIndex() {
+        if (job == null || dir == null) {
+            return null;
+        }
+        BuildIndex i = index;
+        if (i == null || !i.getDir().equals(dir)) { // the job may have been renamed
+            synchronized (indexLock) {
+                // only one instance per directory, so that no summaries are put into one nobody else sees
+                i = index;
+                if (i == null || !i.getDir().equals(dir)) {
+                    index = i = new BuildIndex(dir);
+                }
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Records the summary of a completed build in the {@link BuildIndex},
+     * and along with the build itself if held in {@code summary} mode.
+     */
+    void recordCompleted(Run<?, ?> run) {
+        BuildIndex index = getIndex();
+        if (index != null) {
+            index.put(run);
+        }
+        completed(run.getNumber());
+    }
+
+    /**
+     * Walks through builds, newer ones first, like {@link #iterator},
+     * but using the {@link BuildIndex} rather than loading builds which are not in memory yet.
+     */
+    @Restricted(NoExternalUse.class)
+    public Iterable<HistoricalBuild> getHistoricalBuilds() {
+        return () -> numbersOnDisk().stream().map(this::getHistoricalBuild).filter(Objects::nonNull).iterator();
+    }
+
+    /**
+     * Like {@link #getHistoricalBuilds()}, but loading in the background the next builds which are neither in memory nor in the index,
+     * so that walking through a page of them does not wait for each to be loaded in turn.
+     *
+     * @see BuildPrefetcher
+     */
+    @Restricted(NoExternalUse.class)
+    public Iterable<HistoricalBuild> getHistoricalBuildsPrefetching() {
+        return () -> {
+            Iterator<Integer> numbers = BuildPrefetcher.readAhead(numbersOnDisk().iterator(), BuildPrefetcher.DEPTH, n -> {
+                if (getHeldSummary(n) != null) {
+                    return;
+                }
+                BuildIndex index = getIndex();
+                if (index == null || index.get(n) == null) {
+                    prefetch(n);
+                }
+            });
+            return Iterators.filter(Iterators.transform(numbers, this::getHistoricalBuild), Objects::nonNull);
+        };
+    }
+
+    /**
+     * Like {@link #getHistoricalBuilds()}, but skipping the newest builds which started at or after the given time.
+     * Build numbers are binary searched assuming that builds start in the order of their numbers,
+     * so that only a logarithmic number of builds are looked at to find the first one.
+     *
+     * @param before an exclusive upper bound on {@link HistoricalBuild#getTimeInMillis}
+     */
+    @Restricted(NoExternalUse.class)
+    public Iterable<HistoricalBuild> getHistoricalBuilds(long before) {
+        if (before == Long.MAX_VALUE) {
+            return getHistoricalBuilds();
+        }
+        return () -> {
+            Integer[] numbers = numbersOnDisk().toArray(new Integer[0]);
+            int lo = 0;
+            int hi = numbers.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                HistoricalBuild b = getHistoricalBuild(numbers[mid]);
+                // a build which cannot be loaded does not tell anything, so keep looking from there
+                if (b != null && b.getTimeInMillis() >= before) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return Arrays.stream(numbers, lo, numbers.length).map(this::getHistoricalBuild).filter(Objects::nonNull).iterator();
+        };
+    }
+
+    private @CheckForNull HistoricalBuild getHistoricalBuild(int n) {
+        R r = getIfLoaded(n);
+        if (r != null) {
+            return r;
+        }
+        if (isUnloadable(n)) {
+            return null;
+        }
+        BuildSummary summary = getHeldSummary(n);
+        if (summary == null) {
+            BuildIndex index = getIndex();
+            summary = index != null ? index.get(n) : null;
+        }
+        if (summary != null) {
+            return new IndexedBuild(job, summary);
+        }
+        return getByNumber(n);
+    }
+
     /**
      * Gets the read-only view of this map.
      */
@@ -260,6 +389,11 @@ public final class RunMap<R extends Run<?, R>> extends AbstractLazyLoadRunMap<R>
             try {
                 R b = cons.create(d);
                 b.onLoad();
+                BuildIndex index = getIndex();
+                if (index != null && !b.isBuilding()) {
+                    // builds completed before the index existed
+                    index.putIfAbsent(b);
+                }
                 if (LOGGER.isLoggable(FINEST)) {
                     LOGGER.log(FINEST, "Loaded " + b.getFullDisplayName() + " in " + Thread.currentThread().getName(), new ThisIsHowItsLoaded());
                 }
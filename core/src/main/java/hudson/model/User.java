@@ -82,6 +82,7 @@ import jenkins.security.ImpersonatingUserDetailsService2;
 import jenkins.security.LastGrantedAuthoritiesProperty;
 import jenkins.security.UserDetailsCache;
 import jenkins.util.SystemProperties;
+import jenkins.util.io.WriteBehind;
 import org.jenkinsci.Symbol;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.Beta;
@@ -893,8 +894,7 @@ public class User extends AbstractModelObject implements AccessControlled, Descr
             return;
         }
         XmlFile xmlFile = getConfigFile();
-        xmlFile.write(this);
-        SaveableListener.fireOnChange(this, xmlFile);
+        WriteBehind.write(xmlFile, this, () -> SaveableListener.fireOnChange(this, xmlFile));
     }
 
     /**
@@ -905,6 +905,7 @@ public class User extends AbstractModelObject implements AccessControlled, Descr
     public void delete() throws IOException {
         String idKey = idStrategy().keyFor(id);
         AllUsers.remove(id);
+        WriteBehind.discard(getConfigFile());
         Util.deleteRecursive(getUserFolderFor(id));
         UserDetailsCache.get().invalidate(idKey);
     }
@@ -0,0 +1,57 @@
+package hudson.model.queue;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Action;
+import hudson.model.Queue;
+import hudson.model.Queue.Task;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Arguments of a single {@link Queue#schedule2(Task, int, List)} call,
+ * for submitting many tasks at once with {@link Queue#scheduleAll}.
+ *
+ * @since TODO
+ */
+public final class ScheduleRequest {
+    private final Task task;
+    private final int quietPeriod;
+    private final List<Action> actions;
+
+    /**
+     * @param actions as in {@link Queue#schedule2(Task, int, List)}; null elements are ignored
+     */
+    public ScheduleRequest(@NonNull Task task, int quietPeriod, @NonNull List<? extends Action> actions) {
+        this.task = task;
+        this.quietPeriod = quietPeriod;
+        List<Action> r = new ArrayList<>(actions);
+        r.removeIf(Objects::isNull);
+        this.actions = Collections.unmodifiableList(r);
+    }
+
+    public ScheduleRequest(@NonNull Task task, int quietPeriod, Action... actions) {
+        this(task, quietPeriod, Arrays.asList(actions));
+    }
+
+    @NonNull
+    public Task getTask() {
+        return task;
+    }
+
+    public int getQuietPeriod() {
+        return quietPeriod;
+    }
+
+    @NonNull
+    public List<Action> getActions() {
+        return actions;
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduleRequest[" + task + ",quietPeriod=" + quietPeriod + "]";
+    }
+}
@@ -198,7 +198,7 @@ public class Fingerprinter extends Recorder implements Serializable, DependencyD
             }
 
             if (enableFingerprintsInDependencyGraph) {
-                Jenkins.get().rebuildDependencyGraphAsync();
+                Jenkins.get().rebuildDependencyGraphAsync(build.getParent());
             }
         } catch (IOException e) {
             Functions.printStackTrace(e, listener.error(Messages.Fingerprinter_Failed()));
@@ -42,7 +42,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import jenkins.util.io.BlockGzip;
 
 /**
  * Represents write-once read-many file that can be optionally compressed
@@ -54,6 +54,7 @@ import java.util.zip.GZIPOutputStream;
  * <li>Uncompressed, in which case the original data is available in the specified file name.
  * <li>Compressed, in which case the gzip-compressed data is available in the specified file name + ".gz" extension.
  * </ol>
+ * Compressed files are written by {@link BlockGzip}, so that they can be read from any offset.
  *
  * Once the file is written and completed, it can be compressed asynchronously
  * by {@link #compress()}.
@@ -81,6 +82,7 @@ public class CompressedFile {
      */
     public OutputStream write() throws IOException {
         Files.deleteIfExists(Util.fileToPath(gz));
+        BlockGzip.deleteIndex(gz);
         return Files.newOutputStream(Util.fileToPath(file));
     }
 
@@ -139,11 +141,9 @@ public class CompressedFile {
     public void compress() {
         compressionThread.submit(() -> {
             boolean success;
-            try (InputStream in = read();
-                 OutputStream os = Files.newOutputStream(gz.toPath());
-                 OutputStream out = new GZIPOutputStream(os)) {
-                org.apache.commons.io.IOUtils.copy(in, out);
-                out.flush();
+            try (InputStream in = read()) {
+                // in independently readable blocks, so that reading can start anywhere
+                BlockGzip.compress(in, gz);
                 success = true;
             } catch (IOException | InvalidPathException e) {
                 LOGGER.log(Level.WARNING, "Failed to compress " + file, e);
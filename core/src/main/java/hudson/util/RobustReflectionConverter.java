@@ -58,6 +58,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
@@ -86,6 +87,11 @@ public class RobustReflectionConverter implements Converter {
     static /* non-final for Groovy */ boolean RECORD_FAILURES_FOR_ALL_AUTHENTICATIONS = SystemProperties.getBoolean(RobustReflectionConverter.class.getName() + ".recordFailuresForAllAuthentications", false);
     private static /* non-final for Groovy */ boolean RECORD_FAILURES_FOR_ADMINS = SystemProperties.getBoolean(RobustReflectionConverter.class.getName() + ".recordFailuresForAdmins", false);
 
+    /**
+     * Escape hatch to look fields up for each element read, rather than once per class and field name.
+     */
+    static /* non-final for Groovy */ boolean CACHE_FIELDS = SystemProperties.getBoolean(RobustReflectionConverter.class.getName() + ".cacheFields", true);
+
     static final Set<String> SAFE_TYPES_WITH_OBJECT_FIELDS = new HashSet<>();
     static boolean ALLOW_ALL_OBJECT_FIELDS = SystemProperties.getBoolean(RobustReflectionConverter.class.getName() + ".ALLOW_ALL_OBJECT_FIELDS", false);
 
@@ -115,6 +121,8 @@ public class RobustReflectionConverter implements Converter {
     private final ReadWriteLock criticalFieldsLock = new ReentrantReadWriteLock();
     @GuardedBy("criticalFieldsLock")
     private final Map<String, Set<String>> criticalFields = new HashMap<>();
+    /** Fields by name for each class read, replaced whenever a critical field is added. */
+    private volatile ClassValue<Map<String, FieldInfo>> fieldInfos = newFieldInfos();
 
     public RobustReflectionConverter(Mapper mapper, ReflectionProvider reflectionProvider) {
         this(mapper, reflectionProvider, new XStream2().new PluginClassOwnership());
@@ -138,6 +146,7 @@ public class RobustReflectionConverter implements Converter {
                 criticalFields.put(field, new HashSet<>());
             }
             criticalFields.get(field).add(clazz.getName());
+            fieldInfos = newFieldInfos();
         }
         finally {
             // Unlock
@@ -145,6 +154,54 @@ public class RobustReflectionConverter implements Converter {
         }
     }
 
+    private static ClassValue<Map<String, FieldInfo>> newFieldInfos() {
+        return new ClassValue<>() {
+            @Override
+            protected Map<String, FieldInfo> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+    }
+
+    /**
+     * What {@link #doUnmarshal} needs to know about a field name in a class, which does not change from one object to the next.
+     *
+     * @param field as per {@link ReflectionProvider#getFieldOrNull}
+     * @param critical whether errors reading the field must not be tolerated
+     */
+    private record FieldInfo(Field field, boolean critical) {}
+
+    private FieldInfo fieldInfo(Class<?> type, String fieldName) {
+        if (!CACHE_FIELDS) {
+            return computeFieldInfo(type, fieldName);
+        }
+        Map<String, FieldInfo> infos = fieldInfos.get(type);
+        FieldInfo info = infos.get(fieldName);
+        if (info == null) {
+            info = computeFieldInfo(type, fieldName);
+            // do not let arbitrary element names in data files grow the cache without bound
+            if (infos.size() < MAX_CACHED_FIELDS) {
+                infos.put(fieldName, info);
+            }
+        }
+        return info;
+    }
+
+    private static final int MAX_CACHED_FIELDS = 1000;
+
+    private FieldInfo computeFieldInfo(Class<?> type, String fieldName) {
+        boolean critical = false;
+        for (Class<?> concrete = type; concrete != null; concrete = concrete.getSuperclass()) {
+            // Not quite right since a subclass could shadow a field, but probably suffices:
+            if (hasCriticalField(concrete, fieldName)) {
+                critical = true;
+                break;
+            }
+        }
+        // during unmarshalling, unmarshal into transient fields like XStream 1.1.3
+        return new FieldInfo(reflectionProvider.getFieldOrNull(type, fieldName), critical);
+    }
+
     private boolean hasCriticalField(Class<?> clazz, String field) {
         // Lock the write lock
         criticalFieldsLock.readLock().lock();
@@ -319,9 +376,8 @@ public class RobustReflectionConverter implements Converter {
             String attrAlias = (String) it.next();
             String attrName = mapper.attributeForAlias(attrAlias);
             Class classDefiningField = determineWhichClassDefinesField(reader);
-            boolean fieldExistsInClass = fieldDefinedInClass(result, attrName);
-            if (fieldExistsInClass) {
-                Field field = reflectionProvider.getField(result.getClass(), attrName);
+            Field field = fieldInfo(result.getClass(), attrName).field();
+            if (field != null) {
                 SingleValueConverter converter = mapper.getConverterFromAttribute(field.getDeclaringClass(), attrName, field.getType());
                 Class type = field.getType();
                 if (converter == null) {
@@ -349,25 +405,19 @@ public class RobustReflectionConverter implements Converter {
             boolean critical = false;
             try {
                 String fieldName = mapper.realMember(result.getClass(), reader.getNodeName());
-                for (Class<?> concrete = result.getClass(); concrete != null; concrete = concrete.getSuperclass()) {
-                    // Not quite right since a subclass could shadow a field, but probably suffices:
-                    if (hasCriticalField(concrete, fieldName)) {
-                        critical = true;
-                        break;
-                    }
-                }
+                FieldInfo info = fieldInfo(result.getClass(), fieldName);
+                critical = info.critical();
                 boolean implicitCollectionHasSameName = mapper.getImplicitCollectionDefForFieldName(result.getClass(), reader.getNodeName()) != null;
 
                 Class classDefiningField = determineWhichClassDefinesField(reader);
-                boolean fieldExistsInClass = !implicitCollectionHasSameName && fieldDefinedInClass(result, fieldName);
+                boolean fieldExistsInClass = !implicitCollectionHasSameName && info.field() != null;
 
-                Class type = determineType(reader, fieldExistsInClass, result, fieldName, classDefiningField);
+                Class type = determineType(reader, fieldExistsInClass, result, fieldName, classDefiningField, info.field());
                 final Object value;
                 if (fieldExistsInClass) {
-                    Field field = reflectionProvider.getField(result.getClass(), fieldName);
-                    value = unmarshalField(context, result, type, field);
+                    value = unmarshalField(context, result, type, info.field());
                     // TODO the reflection provider should have returned the proper field in first place ....
-                    Class definedType = reflectionProvider.getFieldType(result, fieldName, classDefiningField);
+                    Class definedType = fieldType(result, fieldName, classDefiningField, info.field());
                     if (!definedType.isPrimitive()) {
                         type = definedType;
                     }
@@ -461,10 +511,11 @@ public class RobustReflectionConverter implements Converter {
         list.add(e);
     }
 
-    private boolean fieldDefinedInClass(Object result, String attrName) {
-        // during unmarshalling, unmarshal into transient fields like XStream 1.1.3
-        //boolean fieldExistsInClass = reflectionProvider.fieldDefinedInClass(attrName, result.getClass());
-        return reflectionProvider.getFieldOrNull(result.getClass(), attrName) != null;
+    /**
+     * As per {@link ReflectionProvider#getFieldType}, reusing the field already looked up unless another class is specified.
+     */
+    private Class fieldType(Object result, String fieldName, Class definedInCls, Field field) {
+        return definedInCls == null && field != null ? field.getType() : reflectionProvider.getFieldType(result, fieldName, definedInCls);
     }
 
     protected Object unmarshalField(final UnmarshallingContext context, final Object result, Class type, Field field) {
@@ -597,11 +648,11 @@ public class RobustReflectionConverter implements Converter {
 
     }
 
-    private Class determineType(HierarchicalStreamReader reader, boolean validField, Object result, String fieldName, Class definedInCls) {
+    private Class determineType(HierarchicalStreamReader reader, boolean validField, Object result, String fieldName, Class definedInCls, Field field) {
         String classAttribute = reader.getAttribute(mapper.aliasForAttribute("class"));
         if (classAttribute != null) {
             Class specifiedType = mapper.realClass(classAttribute);
-            Class fieldType = reflectionProvider.getFieldType(result, fieldName, definedInCls);
+            Class fieldType = fieldType(result, fieldName, definedInCls, field);
             if (fieldType.isAssignableFrom(specifiedType))
                 // make sure that the specified type in XML is compatible with the field type.
                 // this allows the code to evolve in more flexible way.
@@ -615,7 +666,7 @@ public class RobustReflectionConverter implements Converter {
                 return mapper.realClass(reader.getNodeName());
             }
         } else {
-            Class fieldType = reflectionProvider.getFieldType(result, fieldName, definedInCls);
+            Class fieldType = fieldType(result, fieldName, definedInCls, field);
             return mapper.defaultImplementationOf(fieldType);
         }
     }
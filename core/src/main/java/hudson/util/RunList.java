@@ -24,6 +24,7 @@
 
 package hudson.util;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import edu.umd.cs.findbugs.annotations.Nullable;
@@ -32,6 +33,7 @@ import hudson.model.Job;
 import hudson.model.Node;
 import hudson.model.Result;
 import hudson.model.Run;
+import hudson.model.RunMap;
 import hudson.model.TopLevelItem;
 import hudson.model.View;
 import hudson.util.Iterators.CountingPredicate;
@@ -40,13 +42,21 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.GregorianCalendar;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.Spliterator;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import jenkins.model.HistoricalBuild;
+import jenkins.model.lazy.BuildPrefetcher;
+import jenkins.model.lazy.IndexedBuild;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 
 /**
  * {@link List} of {@link Run}s, sorted in the descending date order.
@@ -55,8 +65,37 @@ import java.util.function.Predicate;
  */
 public class RunList<R extends Run> extends AbstractList<R> {
 
+    private static final Comparator<HistoricalBuild> NEWEST_FIRST = (o1, o2) -> Long.compare(o2.getTimeInMillis(), o1.getTimeInMillis());
+
     private Iterable<R> base;
 
+    /**
+     * When not null, this list walks through the builds of these maps instead of {@link #base},
+     * so that filters which only look at {@link HistoricalBuild} properties are applied before builds get loaded,
+     * and builds of several jobs are loaded only once they are merged into the list.
+     */
+    private List<RunMap<?>> runMaps;
+
+    /**
+     * Builds of {@link #runMaps} started at or after this time are skipped without being looked at.
+     */
+    private long before = Long.MAX_VALUE;
+
+    /**
+     * Filters applied in order to the builds of {@link #runMaps} before they are loaded, if any.
+     */
+    private Function<Iterable<HistoricalBuild>, Iterable<HistoricalBuild>> pushedDown;
+
+    /**
+     * Whether {@link #pushedDown} includes a {@link #limit(CountingPredicate)}, which builds skipped by {@link #before} would affect.
+     */
+    private boolean counting;
+
+    /**
+     * Whether to load builds of {@link #runMaps} in the background ahead of being reached.
+     */
+    private boolean prefetching;
+
     private R first;
     private Integer size;
 
@@ -65,7 +104,9 @@ public class RunList<R extends Run> extends AbstractList<R> {
     }
 
     public RunList(Job j) {
-        base = j.getBuilds();
+        List<Iterable<R>> runLists = new ArrayList<>();
+        runLists.add(j.getBuilds());
+        combine(runLists);
     }
 
     public RunList(View view) { // this is a type unsafe operation
@@ -77,14 +118,14 @@ public class RunList<R extends Run> extends AbstractList<R> {
         for (Job job : jobs) {
             runLists.add(job.getBuilds());
         }
-        this.base = combine(runLists);
+        combine(runLists);
     }
 
     public RunList(Collection<? extends Job> jobs) {
         List<Iterable<R>> runLists = new ArrayList<>();
         for (Job j : jobs)
             runLists.add(j.getBuilds());
-        this.base = combine(runLists);
+        combine(runLists);
     }
 
     /**
@@ -100,15 +141,32 @@ public class RunList<R extends Run> extends AbstractList<R> {
         List<Iterable<R>> runLists = new ArrayList<>();
         for (Job j : jobs)
             runLists.add(j.getBuilds());
-        return new RunList<>(combine(runLists));
+        RunList<R> r = new RunList<>();
+        r.combine(runLists);
+        return r;
     }
 
-    private static <R extends Run> Iterable<R> combine(Iterable<Iterable<R>> runLists) {
-        return Iterables.mergeSorted(runLists, (o1, o2) -> {
-            long lhs = o1.getTimeInMillis();
-            long rhs = o2.getTimeInMillis();
-            return Long.compare(rhs, lhs);
-        });
+    /**
+     * Creates a list of the builds of a job which can be filtered before loading them.
+     */
+    @Restricted(NoExternalUse.class)
+    public static <R extends Run> RunList<R> fromRunMap(RunMap<?> runMap) {
+        RunList<R> r = new RunList<>();
+        r.runMaps = List.of(runMap);
+        return r;
+    }
+
+    private void combine(List<Iterable<R>> runLists) {
+        List<RunMap<?>> maps = new ArrayList<>();
+        for (Iterable<R> runList : runLists) {
+            if (runList instanceof RunList<?> l && l.runMaps != null && l.pushedDown == null && l.before == Long.MAX_VALUE) {
+                maps.addAll(l.runMaps);
+            } else {
+                base = runLists.size() == 1 ? runLists.get(0) : Iterables.mergeSorted(runLists, NEWEST_FIRST);
+                return;
+            }
+        }
+        runMaps = maps;
     }
 
     private RunList(Iterable<R> c) {
@@ -117,7 +175,72 @@ public class RunList<R extends Run> extends AbstractList<R> {
 
     @Override
     public Iterator<R> iterator() {
-        return base.iterator();
+        return base().iterator();
+    }
+
+    private Iterable<R> base() {
+        if (runMaps == null) {
+            return base;
+        }
+        final List<RunMap<?>> maps = runMaps;
+        final long b = before;
+        final Function<Iterable<HistoricalBuild>, Iterable<HistoricalBuild>> stages = pushedDown;
+        final boolean prefetch = prefetching;
+        final boolean loadedByStages = counting;
+        return new Iterable<>() {
+            @Override
+            public Iterator<R> iterator() {
+                List<Iterable<HistoricalBuild>> sources = new ArrayList<>(maps.size());
+                for (RunMap<?> m : maps) {
+                    sources.add(m.getHistoricalBuilds(b));
+                }
+                // a k-way merge, which only looks at the next build of each job
+                Iterable<HistoricalBuild> merged = sources.size() == 1 ? sources.get(0) : Iterables.mergeSorted(sources, NEWEST_FIRST);
+                Iterable<HistoricalBuild> builds = prefetch && loadedByStages ? () -> readAhead(merged.iterator()) : merged;
+                if (stages != null) {
+                    builds = stages.apply(builds);
+                }
+                Iterator<HistoricalBuild> it = builds.iterator();
+                if (prefetch && !loadedByStages) {
+                    it = readAhead(it);
+                }
+                return Iterators.filter(Iterators.transform(it, RunList::<R>load), Objects::nonNull);
+            }
+
+            @Override
+            public String toString() {
+                return Iterables.toString(this);
+            }
+        };
+    }
+
+    /**
+     * Returns a copy of this list which loads builds in the background ahead of them being reached,
+     * for lists which are going to be walked through in full.
+     * Builds of several jobs are then loaded concurrently.
+     */
+    @Restricted(NoExternalUse.class)
+    public RunList<R> prefetching() {
+        RunList<R> r = new RunList<>(base);
+        r.runMaps = runMaps;
+        r.before = before;
+        r.pushedDown = pushedDown;
+        r.counting = counting;
+        r.prefetching = true;
+        return r;
+    }
+
+    private static Iterator<HistoricalBuild> readAhead(Iterator<HistoricalBuild> it) {
+        return BuildPrefetcher.readAhead(it, BuildPrefetcher.DEPTH, b -> {
+            if (b instanceof IndexedBuild i) {
+                i.prefetch();
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Run> T load(HistoricalBuild b) {
+        return (T) (b instanceof IndexedBuild i ? i.load() : b);
     }
 
     /**
@@ -167,7 +290,7 @@ public class RunList<R extends Run> extends AbstractList<R> {
 
     @Override
     public Spliterator<R> spliterator() {
-        return base.spliterator();
+        return base().spliterator();
     }
 
     @Override
@@ -247,7 +370,8 @@ public class RunList<R extends Run> extends AbstractList<R> {
     public RunList<R> filter(com.google.common.base.Predicate<R> predicate) {
         size = null;
         first = null;
-        base = Iterables.filter(base, predicate);
+        base = Iterables.filter(base(), predicate);
+        runMaps = null;
         return this;
     }
 
@@ -256,10 +380,11 @@ public class RunList<R extends Run> extends AbstractList<R> {
      *
      * For example, {@code filter([1,2,3,4],odd)==[1,3]} but {@code limit([1,2,3,4],odd)==[1]}.
      */
-    private RunList<R> limit(final CountingPredicate<R> predicate) {
+    private RunList<R> limit(final CountingPredicate<? super R> predicate) {
         size = null;
         first = null;
-        final Iterable<R> nested = base;
+        final Iterable<R> nested = base();
+        runMaps = null;
         base = new Iterable<>() {
             @Override
             public Iterator<R> iterator() {
@@ -282,7 +407,55 @@ public class RunList<R extends Run> extends AbstractList<R> {
      * @since 1.507
      */
     public RunList<R> limit(final int n) {
-        return limit((index, input) -> index < n);
+        return limitHistorical((index, input) -> index < n);
+    }
+
+    /**
+     * Like {@link #filter(Predicate)}, but applied before loading builds when possible.
+     */
+    private RunList<R> filterHistorical(Predicate<HistoricalBuild> predicate) {
+        if (runMaps == null) {
+            return filter((Predicate<R>) predicate::test);
+        }
+        return pushDown(builds -> Iterables.filter(builds, predicate::test));
+    }
+
+    /**
+     * Like {@link #limit(CountingPredicate)}, but applied before loading builds when possible.
+     * Builds are loaded once they satisfy the predicate, and only counted if they can be, as they would be if loaded first.
+     */
+    private RunList<R> limitHistorical(CountingPredicate<HistoricalBuild> predicate) {
+        if (runMaps == null) {
+            return limit(predicate);
+        }
+        counting = true;
+        return pushDown(builds -> () -> new AbstractIterator<>() {
+            private final Iterator<HistoricalBuild> it = builds.iterator();
+            private int index;
+
+            @Override
+            protected HistoricalBuild computeNext() {
+                while (it.hasNext()) {
+                    HistoricalBuild b = it.next();
+                    if (!predicate.apply(index, b)) {
+                        break;
+                    }
+                    Run<?, ?> run = load(b);
+                    if (run != null) {
+                        index++;
+                        return run;
+                    }
+                }
+                return endOfData();
+            }
+        });
+    }
+
+    private RunList<R> pushDown(Function<Iterable<HistoricalBuild>, Iterable<HistoricalBuild>> stage) {
+        size = null;
+        first = null;
+        pushedDown = pushedDown == null ? stage : pushedDown.andThen(stage);
+        return this;
     }
 
     /**
@@ -290,7 +463,7 @@ public class RunList<R extends Run> extends AbstractList<R> {
      * <em>Warning:</em> this method mutates the original list and then returns it.
      */
     public RunList<R> failureOnly() {
-        return filter((Predicate<R>) r -> r.getResult() != Result.SUCCESS);
+        return filterHistorical(r -> r.getResult() != Result.SUCCESS);
     }
 
     /**
@@ -299,7 +472,7 @@ public class RunList<R extends Run> extends AbstractList<R> {
      * @since 1.517
      */
     public RunList<R> overThresholdOnly(final Result threshold) {
-        return filter((Predicate<R>) r -> r.getResult() != null && r.getResult().isBetterOrEqualTo(threshold));
+        return filterHistorical(r -> r.getResult() != null && r.getResult().isBetterOrEqualTo(threshold));
     }
 
     /**
@@ -308,7 +481,7 @@ public class RunList<R extends Run> extends AbstractList<R> {
      * @since 1.561
      */
     public RunList<R> completedOnly() {
-        return filter((Predicate<R>) r -> !r.isBuilding());
+        return filterHistorical(r -> !r.isBuilding());
     }
 
     /**
@@ -334,8 +507,12 @@ public class RunList<R extends Run> extends AbstractList<R> {
      * <em>Warning:</em> this method mutates the original list and then returns it.
      */
     public RunList<R> byTimestamp(final long start, final long end) {
+        if (runMaps != null && !counting) {
+            // newer builds would be filtered out anyway, so find the first older one by binary search
+            before = Math.min(before, end);
+        }
         return
-        limit((index, r) -> start <= r.getTimeInMillis()).filter((Predicate<R>) r -> r.getTimeInMillis() < end);
+        limitHistorical((index, r) -> start <= r.getTimeInMillis()).filterHistorical(r -> r.getTimeInMillis() < end);
     }
 
     /**
@@ -350,8 +527,8 @@ public class RunList<R extends Run> extends AbstractList<R> {
         final long t = cal.getTimeInMillis();
 
         // can't publish on-going builds
-        return filter((Predicate<R>) r -> !r.isBuilding())
+        return filterHistorical(r -> !r.isBuilding())
         // put at least 10 builds, but otherwise ignore old builds
-        .limit((index, r) -> index < 10 || r.getTimeInMillis() >= t);
+        .limitHistorical((index, r) -> index < 10 || r.getTimeInMillis() >= t);
     }
 }
@@ -107,7 +107,7 @@ public class BuildHistoryWidget<T> extends HistoryWidget<Task, T> {
         @Override
         public Collection<BuildHistoryWidget> createFor(@NonNull Job target) {
             if (target instanceof Queue.Task) {
-                return List.of(new BuildHistoryWidget<>((Queue.Task) target, target.getBuilds(), Job.HISTORY_ADAPTER));
+                return List.of(new BuildHistoryWidget<>((Queue.Task) target, target.getHistoricalBuilds(), Job.HISTORY_ADAPTER));
             }
             return Collections.emptySet();
         }
@@ -336,7 +336,7 @@ public class HistoryWidget<O extends ModelObject, T> extends Widget {
         public Collection<HistoryWidget> createFor(@NonNull Job target) {
             // e.g. hudson.model.ExternalJob
             if (!(target instanceof Queue.Task)) {
-                return List.of(new HistoryWidget<>(target, target.getBuilds(), Job.HISTORY_ADAPTER));
+                return List.of(new HistoryWidget<>(target, target.getHistoricalBuilds(), Job.HISTORY_ADAPTER));
             }
             return Collections.emptySet();
         }
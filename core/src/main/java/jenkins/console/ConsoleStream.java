@@ -0,0 +1,376 @@
+package jenkins.console;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Util;
+import hudson.console.ConsoleAnnotationOutputStream;
+import hudson.console.ConsoleAnnotator;
+import hudson.model.Run;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.model.JenkinsLocationConfiguration;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import jenkins.websocket.WebSocketSession;
+import jenkins.websocket.WebSockets;
+import net.sf.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerRequest2;
+
+/**
+ * Pushes the annotated console of running builds to browsers over WebSocket, as an alternative to polling {@code logText/progressiveHtml}.
+ *
+ * <p>
+ * All viewers of a build share a single {@link Tailer}, which reads what was appended to the log since it last looked,
+ * annotates it once and sends the resulting HTML to each of them.
+ * A viewer starting further back than the tailer first gets the missing part rendered for it alone.
+ * Messages are JSON objects with the {@code text} to append, the {@code end} offset in the log it goes up to,
+ * and whether the log is {@code completed}.
+ * A long stretch of log is split across several messages.
+ *
+ * <p>
+ * As the output is shared, it is annotated as {@link Jenkins#ANONYMOUS2} rather than as any one viewer.
+ * Browsers fall back to polling whenever the stream is not available.
+ */
+@Restricted(NoExternalUse.class)
+public final class ConsoleStream {
+
+    private static final Logger LOGGER = Logger.getLogger(ConsoleStream.class.getName());
+
+    /**
+     * Escape hatch to have browsers poll for console output as before.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ boolean DISABLED = SystemProperties.getBoolean(ConsoleStream.class.getName() + ".disabled");
+
+    /**
+     * How often running logs are checked for new output, in milliseconds.
+     */
+    private static final long INTERVAL = SystemProperties.getLong(ConsoleStream.class.getName() + ".interval", 1000L);
+
+    /**
+     * How much of the log a single message covers at most, in bytes, so that a large backlog is sent in several messages.
+     */
+    private static final long MAX_MESSAGE = SystemProperties.getLong(ConsoleStream.class.getName() + ".maxMessage", 1024L * 1024);
+
+    private static final Map<Run<?, ?>, Tailer> tailers = new HashMap<>();
+
+    private ConsoleStream() {}
+
+    /**
+     * Whether the console of a build can be streamed.
+     * Builds whose log is not stored by {@link Run} itself, or is complete, are left to polling.
+     */
+    public static boolean isSupported(@NonNull Run<?, ?> run) {
+        return !DISABLED
+                && WebSockets.isSupported()
+                && run.isLogUpdated()
+                && !Util.isOverridden(Run.class, run.getClass(), "getLogText")
+                && !Util.isOverridden(Run.class, run.getClass(), "getLogInputStream");
+    }
+
+    /**
+     * Starts streaming the console of a build.
+     *
+     * @param start the offset in the log to start from
+     */
+    @NonNull
+    public static HttpResponse upgrade(@NonNull Run<?, ?> run, long start, @NonNull StaplerRequest2 req) {
+        if (!isSupported(run)) {
+            return HttpResponses.status(HttpServletResponse.SC_NOT_FOUND);
+        }
+        String origin = req.getHeader("Origin");
+        if (origin == null || !origin.equals(expectedOrigin())) {
+            // another site must not read the console with the cookies of the viewer
+            LOGGER.log(Level.FINE, () -> "Rejecting console stream from origin " + origin);
+            return HttpResponses.forbidden();
+        }
+        return WebSockets.upgrade(new Viewer(run, Math.max(0, start)));
+    }
+
+    private static String expectedOrigin() {
+        String url = JenkinsLocationConfiguration.get().getUrl();
+        if (url == null) {
+            return null;
+        }
+        try {
+            URI uri = new URI(url);
+            return uri.getScheme() + "://" + uri.getRawAuthority();
+        } catch (URISyntaxException x) {
+            return null;
+        }
+    }
+
+    private static void subscribe(Viewer viewer) throws IOException {
+        while (true) {
+            Tailer tailer;
+            synchronized (tailers) {
+                tailer = tailers.computeIfAbsent(viewer.run, run -> new Tailer(run, viewer.start));
+            }
+            if (tailer.add(viewer)) {
+                return;
+            }
+            // it stopped in the meantime
+        }
+    }
+
+    /**
+     * Renders part of a log to HTML, short of any incomplete last line.
+     *
+     * @return the offset read up to
+     */
+    private static long render(File log, long start, long end, ConsoleAnnotationOutputStream<?> out) throws IOException {
+        if (start < end) {
+            try (FileChannel ch = FileChannel.open(log.toPath(), StandardOpenOption.READ)) {
+                ch.position(start);
+                try (InputStream in = Channels.newInputStream(ch)) {
+                    long remaining = end - start;
+                    byte[] buf = new byte[8192];
+                    int n;
+                    while (remaining > 0 && (n = in.read(buf, 0, (int) Math.min(buf.length, remaining))) > 0) {
+                        out.write(buf, 0, n);
+                        remaining -= n;
+                    }
+                    end -= remaining;
+                }
+            }
+        }
+        return Math.max(start, end);
+    }
+
+    /**
+     * How many viewers follow the console of a build.
+     */
+    static int viewers(Run<?, ?> run) {
+        Tailer tailer;
+        synchronized (tailers) {
+            tailer = tailers.get(run);
+        }
+        if (tailer == null) {
+            return 0;
+        }
+        synchronized (tailer) {
+            return tailer.viewers.size();
+        }
+    }
+
+    private static String message(String text, long end, boolean completed) {
+        return new JSONObject().element("text", text).element("end", end).element("completed", completed).toString();
+    }
+
+    /**
+     * Follows the log of one build on behalf of all its viewers.
+     */
+    private static final class Tailer {
+        private final Run<?, ?> run;
+        private final File log;
+        private final StringWriter html = new StringWriter();
+        private final ConsoleAnnotationOutputStream<?> out;
+        private final List<Viewer> viewers = new ArrayList<>();
+        /** How far the log has been read. */
+        private long read;
+        private ScheduledFuture<?> task;
+        private boolean stopped;
+
+        Tailer(Run<?, ?> run, long start) {
+            this.run = run;
+            this.log = run.getLogFile();
+            // annotator factories must not produce markup only some viewers may see
+            try (ACLContext ctx = ACL.as2(Jenkins.ANONYMOUS2)) {
+                this.out = new ConsoleAnnotationOutputStream<>(html, ConsoleAnnotator.initial(run), run, run.getCharset());
+            }
+            this.read = start;
+            task = Timer.get().scheduleWithFixedDelay(this::update, INTERVAL, INTERVAL, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Where the next message starts.
+         */
+        private long position() {
+            return read - out.lineBufferSize();
+        }
+
+        /**
+         * Adds a viewer, first sending it what it is missing.
+         *
+         * @return false if this has stopped, and a new tailer is needed
+         */
+        boolean add(Viewer viewer) throws IOException {
+            long from = viewer.start;
+            ConsoleAnnotationOutputStream<?> catchUp = null;
+            StringWriter catchUpHtml = new StringWriter();
+            while (true) {
+                long end;
+                synchronized (this) {
+                    if (stopped) {
+                        return false;
+                    }
+                    if (from > position()) {
+                        // this is behind the viewer
+                        update();
+                        if (stopped) {
+                            return false;
+                        }
+                    }
+                    end = position();
+                    if (from >= end) {
+                        // anything in between has been sent to the viewer, up to some duplicated lines if it asked for an odd offset
+                        viewers.add(viewer);
+                        return true;
+                    }
+                }
+                // render outside the lock so that other viewers are not held up
+                try (ACLContext ctx = ACL.as2(Jenkins.ANONYMOUS2)) {
+                    if (catchUp == null) {
+                        catchUp = new ConsoleAnnotationOutputStream<>(catchUpHtml, ConsoleAnnotator.initial(run), run, run.getCharset());
+                    }
+                    from = render(log, from, Math.min(end, from + MAX_MESSAGE), catchUp);
+                }
+                viewer.send(message(catchUpHtml.toString(), from, false));
+                catchUpHtml.getBuffer().setLength(0);
+            }
+        }
+
+        synchronized void remove(Viewer viewer) {
+            viewers.remove(viewer);
+        }
+
+        synchronized void update() {
+            if (stopped) {
+                return;
+            }
+            if (viewers.isEmpty()) {
+                stop();
+                return;
+            }
+            try (ACLContext ctx = ACL.as2(Jenkins.ANONYMOUS2)) {
+                // checked first, so that whatever is written before the build completes gets read below
+                boolean completed = !run.isLogUpdated();
+                long length = log.length();
+                boolean last;
+                do {
+                    long from = read;
+                    read = render(log, from, Math.min(length, from + MAX_MESSAGE), out);
+                    last = read >= length || read == from;
+                    if (completed && last) {
+                        out.forceEol();
+                    }
+                    String text = html.toString();
+                    html.getBuffer().setLength(0);
+                    if (!text.isEmpty() || completed && last) {
+                        String message = message(text, position(), completed && last);
+                        for (Viewer viewer : new ArrayList<>(viewers)) {
+                            viewer.send(message);
+                        }
+                    }
+                } while (!last);
+                if (completed) {
+                    finish();
+                }
+            } catch (IOException | RuntimeException x) {
+                LOGGER.log(Level.WARNING, "Failed to stream the console of " + run, x);
+                // viewers will resume by polling
+                finish();
+            }
+        }
+
+        private void finish() {
+            for (Viewer viewer : new ArrayList<>(viewers)) {
+                viewer.finish();
+            }
+            stop();
+        }
+
+        private void stop() {
+            stopped = true;
+            viewers.clear();
+            if (task != null) {
+                task.cancel(false);
+            }
+            synchronized (tailers) {
+                tailers.remove(run, this);
+            }
+        }
+    }
+
+    /**
+     * One browser following the console of a build.
+     */
+    private static final class Viewer extends WebSocketSession {
+        final Run<?, ?> run;
+        final long start;
+
+        Viewer(Run<?, ?> run, long start) {
+            this.run = run;
+            this.start = start;
+        }
+
+        @Override
+        protected void opened() {
+            // catching up may take a while
+            Timer.get().execute(() -> {
+                try {
+                    subscribe(this);
+                } catch (IOException | RuntimeException x) {
+                    LOGGER.log(Level.FINE, "Failed to start streaming the console of " + run, x);
+                    finish();
+                }
+            });
+        }
+
+        @Override
+        protected void closed(int statusCode, String reason) {
+            Tailer tailer;
+            synchronized (tailers) {
+                tailer = tailers.get(run);
+            }
+            if (tailer != null) {
+                tailer.remove(this);
+            }
+        }
+
+        @Override
+        protected void error(Throwable cause) {
+            LOGGER.log(Level.FINE, "Console stream of " + run + " failed", cause);
+            closed(0, cause.toString());
+        }
+
+        void send(String message) {
+            try {
+                sendText(message);
+            } catch (IOException | RuntimeException x) {
+                error(x);
+            }
+        }
+
+        void finish() {
+            try {
+                close();
+            } catch (IOException | RuntimeException x) {
+                LOGGER.log(Level.FINE, "Failed to close console stream of " + run, x);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package jenkins.console;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.console.ConsoleNote;
+import hudson.console.PlainTextConsoleOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Keeps track of whether a log is free of {@link ConsoleNote}s, so that it can be served as plain text
+ * by copying the file as is, rather than through {@link PlainTextConsoleOutputStream}.
+ *
+ * <p>
+ * A marker file is created next to a log when it starts being written,
+ * and deleted before the first byte which could start a note, {@code ESC}, is written to the log.
+ * So while the marker exists, everything written to the log so far is known to be free of notes.
+ */
+@Restricted(NoExternalUse.class)
+public final class NoteFreeLog {
+
+    /**
+     * Escape hatch to always strip notes from plain text logs.
+     */
+    private static final boolean DISABLED = SystemProperties.getBoolean(NoteFreeLog.class.getName() + ".disabled");
+
+    private static final byte ESC = 0x1B;
+
+    private NoteFreeLog() {}
+
+    @NonNull
+    private static File marker(@NonNull File log) {
+        return new File(log.getParentFile(), log.getName() + ".plain");
+    }
+
+    /**
+     * Tracks whether what is written to a log contains notes.
+     *
+     * @param out a stream appending to {@code log}
+     */
+    @NonNull
+    public static OutputStream record(@NonNull File log, @NonNull OutputStream out) throws IOException {
+        File marker = marker(log);
+        if (DISABLED || log.length() > 0) {
+            // whatever was written before is unknown
+            Files.deleteIfExists(marker.toPath());
+            return out;
+        }
+        Files.write(marker.toPath(), new byte[0]);
+        return new FilterOutputStream(out) {
+            private boolean plain = true;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (plain && (byte) b == ESC) {
+                    annotated();
+                }
+                out.write(b);
+            }
+
+            @Override
+            public void write(@NonNull byte[] b, int off, int len) throws IOException {
+                if (plain) {
+                    for (int i = off; i < off + len; i++) {
+                        if (b[i] == ESC) {
+                            annotated();
+                            break;
+                        }
+                    }
+                }
+                out.write(b, off, len);
+            }
+
+            private void annotated() throws IOException {
+                // must be gone before the log contains a note
+                Files.deleteIfExists(marker.toPath());
+                plain = false;
+            }
+        };
+    }
+
+    /**
+     * Copies part of a log as is, if it is known to be free of notes.
+     * The copy goes through {@link FileChannel#transferTo}, which avoids copying in Java where the platform allows.
+     *
+     * @param start the offset to copy from
+     * @return the offset copied up to, or -1 if the log may contain notes, and nothing was copied
+     */
+    public static long transferTo(@NonNull File log, long start, @NonNull OutputStream out) throws IOException {
+        if (DISABLED || log.getName().endsWith(".gz")) {
+            return -1;
+        }
+        // only what was written while the marker existed is known to be plain
+        long end = log.length();
+        if (!marker(log).exists()) {
+            return -1;
+        }
+        try (FileChannel ch = FileChannel.open(log.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position < end) {
+                long n = ch.transferTo(position, end - position, target);
+                if (n <= 0) {
+                    break;
+                }
+                position += n;
+            }
+            return Math.max(position, start);
+        }
+    }
+}
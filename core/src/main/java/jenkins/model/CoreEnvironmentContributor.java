@@ -54,8 +54,8 @@ public class CoreEnvironmentContributor extends EnvironmentContributor {
         env.put("JENKINS_HOME", root);
         env.put("HUDSON_HOME", root);   // legacy compatibility
 
-        Thread t = Thread.currentThread();
-        if (t instanceof Executor e) {
+        Executor e = Executor.ofCurrentThread();
+        if (e != null) {
             env.put("EXECUTOR_NUMBER", String.valueOf(e.getNumber()));
             if (e.getOwner() instanceof MasterComputer) {
                 env.put("NODE_NAME", Jenkins.get().getSelfLabel().getName());
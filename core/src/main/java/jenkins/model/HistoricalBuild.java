@@ -123,6 +123,13 @@ public interface HistoricalBuild extends FullyNamedModelObject {
     @NonNull
     Calendar getTimestamp();
 
+    /**
+     * Same as {@link #getTimestamp()} but in a different type, that is since the time of the epoch.
+     */
+    default long getTimeInMillis() {
+        return getTimestamp().getTimeInMillis();
+    }
+
     /**
      * Gets the string that says how long the build took to run.
      */
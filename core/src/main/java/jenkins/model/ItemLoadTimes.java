@@ -0,0 +1,192 @@
+package jenkins.model;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import java.io.File;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Measures how long each item takes to {@link Items#load}, and reports the slowest ones once all items are loaded.
+ * The time of an item excludes that of items it loads itself, such as the jobs of a folder.
+ * Progress of loading the children of each {@link ItemGroup} is tracked as well.
+ */
+@Restricted(NoExternalUse.class)
+public final class ItemLoadTimes {
+
+    private static final Logger LOGGER = Logger.getLogger(ItemLoadTimes.class.getName());
+
+    /**
+     * How many of the slowest items to report.
+     */
+    private static final int REPORT_SIZE = SystemProperties.getInteger(ItemLoadTimes.class.getName() + ".reportSize", 20);
+
+    private static final ThreadLocal<Timer> CURRENT = new ThreadLocal<>();
+
+    private static volatile Map<File, Long> times;
+
+    private static final Map<String, Group> groups = new ConcurrentHashMap<>();
+
+    private ItemLoadTimes() {}
+
+    /**
+     * Starts collecting load times, until the next {@link #report}.
+     */
+    static void begin() {
+        times = new ConcurrentHashMap<>();
+        groups.clear();
+    }
+
+    /**
+     * Starts timing the load of an item.
+     *
+     * @param dir the directory of the item
+     */
+    @NonNull
+    public static Timer start(@NonNull File dir) {
+        Timer t = new Timer(dir, CURRENT.get());
+        CURRENT.set(t);
+        return t;
+    }
+
+    /**
+     * Wraps a task loading items on another thread on behalf of the item being loaded by the calling thread,
+     * so that time spent in the task is not counted against that item.
+     */
+    @NonNull
+    public static Runnable propagate(@NonNull Runnable task) {
+        Timer t = CURRENT.get();
+        return () -> {
+            Timer saved = CURRENT.get();
+            CURRENT.set(t);
+            try {
+                task.run();
+            } finally {
+                if (saved != null) {
+                    CURRENT.set(saved);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+
+    /**
+     * Starts tracking the loading of the children of a group.
+     *
+     * @param name the full name of the group
+     * @param total how many children are to be loaded
+     */
+    @NonNull
+    public static Group startGroup(@NonNull String name, int total) {
+        Group g = new Group(name, total);
+        if (times != null) {
+            groups.put(name, g);
+        }
+        return g;
+    }
+
+    /**
+     * Logs the total load time and the slowest items, and stops collecting.
+     */
+    static void report() {
+        Map<File, Long> collected = times;
+        times = null;
+        if (collected == null || collected.isEmpty() || !LOGGER.isLoggable(Level.INFO)) {
+            return;
+        }
+        long total = collected.values().stream().mapToLong(Long::longValue).sum();
+        String slowest = collected.entrySet().stream()
+                .sorted(Map.Entry.<File, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(REPORT_SIZE)
+                .map(e -> e.getKey() + " " + TimeUnit.NANOSECONDS.toMillis(e.getValue()) + "ms")
+                .collect(Collectors.joining("\n  "));
+        LOGGER.info(() -> "Loaded " + collected.size() + " items in " + TimeUnit.NANOSECONDS.toMillis(total)
+                + "ms in total; slowest:\n  " + slowest);
+        if (!groups.isEmpty()) {
+            String biggest = groups.values().stream()
+                    .sorted(Comparator.comparingLong((Group g) -> g.elapsed).reversed())
+                    .limit(REPORT_SIZE)
+                    .map(Group::toString)
+                    .collect(Collectors.joining("\n  "));
+            groups.clear();
+            LOGGER.info(() -> "Slowest item groups:\n  " + biggest);
+        }
+    }
+
+    public static final class Timer {
+        private final File dir;
+        private final Timer parent;
+        private final long start = System.nanoTime();
+        private final AtomicLong nested = new AtomicLong();
+
+        private Timer(File dir, Timer parent) {
+            this.dir = dir;
+            this.parent = parent;
+        }
+
+        /**
+         * Records the time since {@link #start}.
+         */
+        public void stop() {
+            long elapsed = System.nanoTime() - start;
+            if (parent != null) {
+                CURRENT.set(parent);
+                parent.nested.addAndGet(elapsed);
+            } else {
+                CURRENT.remove();
+            }
+            Map<File, Long> collected = times;
+            if (collected != null) {
+                // children loaded concurrently may add up to more than the wall time
+                collected.merge(dir, Math.max(0, elapsed - nested.get()), Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Progress of loading the children of an {@link ItemGroup}.
+     */
+    public static final class Group {
+        private final String name;
+        private final int total;
+        private final AtomicInteger loaded = new AtomicInteger();
+        private final long start = System.nanoTime();
+        private volatile long elapsed;
+
+        private Group(String name, int total) {
+            this.name = name;
+            this.total = total;
+        }
+
+        /**
+         * Records that one more child has been loaded, or failed to.
+         */
+        public void loaded() {
+            int n = loaded.incrementAndGet();
+            if (n % 1000 == 0) {
+                LOGGER.fine(() -> "Loaded " + n + " of " + total + " items in " + name);
+            }
+        }
+
+        public void finish() {
+            elapsed = System.nanoTime() - start;
+        }
+
+        @Override
+        public String toString() {
+            return (name.isEmpty() ? "(root)" : name) + " " + loaded.get() + "/" + total + " items in " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms";
+        }
+    }
+}
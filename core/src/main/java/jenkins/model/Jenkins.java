@@ -279,6 +279,7 @@ import jenkins.diagnostics.URICheckEncodingMonitor;
 import jenkins.install.InstallState;
 import jenkins.install.SetupWizard;
 import jenkins.model.ProjectNamingStrategy.DefaultProjectNamingStrategy;
+import jenkins.model.labels.LabelBitSet;
 import jenkins.security.ClassFilterImpl;
 import jenkins.security.ConfidentialKey;
 import jenkins.security.ConfidentialStore;
@@ -299,6 +300,7 @@ import jenkins.util.SystemProperties;
 import jenkins.util.Timer;
 import jenkins.util.io.FileBoolean;
 import jenkins.util.io.OnMaster;
+import jenkins.util.io.WriteBehind;
 import jenkins.util.xml.XMLUtils;
 import net.jcip.annotations.GuardedBy;
 import net.sf.json.JSONObject;
@@ -517,6 +519,17 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
     private transient Future<DependencyGraph> scheduledFutureDependencyGraph;
     private transient Future<DependencyGraph> calculatingFutureDependencyGraph;
     private transient Object dependencyGraphLock = new Object();
+    /**
+     * Held while computing and publishing {@link #dependencyGraph}, so that a graph derived from an older one does not replace a newer one.
+     * Distinct from {@link #dependencyGraphLock} so that {@link #rebuildDependencyGraphAsync()} does not wait for a computation.
+     */
+    private transient Object dependencyGraphBuildLock = new Object();
+    /**
+     * Projects changed since {@link #scheduledFutureDependencyGraph} was scheduled,
+     * unless {@link #fullDependencyGraphRebuild} is set.
+     */
+    private transient Set<AbstractProject> dependencyGraphChanges = new HashSet<>();
+    private transient boolean fullDependencyGraphRebuild;
 
     /**
      * Currently active Views tab bar.
@@ -2259,9 +2272,12 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
      * @param includedLabels the labels taken as reference to update labels. If {@code null}, all labels are considered.
      */
     private void trimLabels(@CheckForNull Set<LabelAtom> includedLabels) {
-        Set<Set<LabelAtom>> nodeLabels = new HashSet<>();
-        nodeLabels.add(this.getAssignedLabels());
-        this.getNodes().forEach(n -> nodeLabels.add(n.getAssignedLabels()));
+        // labels found by LabelFinders may have changed too
+        Node.resetDynamicLabels();
+        // distinct label sets of all nodes, so that each label is only matched once against each of them
+        Set<LabelBitSet> nodeLabels = new HashSet<>();
+        nodeLabels.add(this.getAssignedLabelBitSet());
+        this.getNodes().forEach(n -> nodeLabels.add(n.getAssignedLabelBitSet()));
         for (Iterator<Label> itr = labels.values().iterator(); itr.hasNext();) {
             Label l = itr.next();
             if (includedLabels == null || includedLabels.contains(l) || l.matches(includedLabels)) {
@@ -3470,6 +3486,7 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
         File[] subdirs = projectsDir.listFiles();
 
         final Set<String> loadedNames = Collections.synchronizedSet(new HashSet<>());
+        ItemLoadTimes.begin();
 
         TaskGraphBuilder g = new TaskGraphBuilder();
         Handle loadJenkins = g.requires(EXTENSIONS_AUGMENTED).attains(SYSTEM_CONFIG_LOADED).add("Loading global config", session -> {
@@ -3507,6 +3524,7 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
                 if (!loadedNames.contains(name))
                     items.remove(name);
             }
+            ItemLoadTimes.report();
         });
 
         g.requires(JOB_CONFIG_ADAPTED).attains(COMPLETED).add("Finalizing set up", session -> {
@@ -3648,6 +3666,8 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
 
             _cleanUpPersistQueue(errors);
 
+            _cleanUpFlushWriteBehind(errors);
+
             _cleanUpShutdownThreadPoolForLoad(errors);
 
             _cleanUpAwaitDisconnects(errors, pending);
@@ -3909,6 +3929,16 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
         }
     }
 
+    private void _cleanUpFlushWriteBehind(List<Throwable> errors) {
+        LOGGER.log(FINE, "Writing deferred saves");
+        try {
+            WriteBehind.flushAll();
+        } catch (IOException e) {
+            LOGGER.log(SEVERE, "Failed to write deferred saves", e);
+            errors.add(e);
+        }
+    }
+
     private void _cleanUpShutdownThreadPoolForLoad(List<Throwable> errors) {
         LOGGER.log(FINE, "Shutting down Jenkins load thread pool");
         try {
@@ -4426,6 +4456,7 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
      */
     public void reload() throws IOException, InterruptedException, ReactorException {
         queue.save();
+        WriteBehind.flushAll();
         executeReactor(null, loadTasks());
 
         // Ensure we reached the final initialization state. Log the error otherwise
@@ -5103,11 +5134,13 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
      * Rebuilds the dependency map.
      */
     public void rebuildDependencyGraph() {
-        DependencyGraph graph = new DependencyGraph();
-        graph.build();
-        // volatile acts a as a memory barrier here and therefore guarantees
-        // that graph is fully build, before it's visible to other threads
-        dependencyGraph = graph;
+        synchronized (dependencyGraphBuildLock) {
+            DependencyGraph graph = new DependencyGraph();
+            graph.build();
+            // volatile acts a as a memory barrier here and therefore guarantees
+            // that graph is fully build, before it's visible to other threads
+            dependencyGraph = graph;
+        }
     }
 
     /**
@@ -5121,11 +5154,30 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
      */
     public Future<DependencyGraph> rebuildDependencyGraphAsync() {
         synchronized (dependencyGraphLock) {
+            fullDependencyGraphRebuild = true;
             // Collect calls to this method to avoid unnecessary calculation of the dependency graph
             return Objects.requireNonNullElseGet(scheduledFutureDependencyGraph, () -> scheduledFutureDependencyGraph = scheduleCalculationOfFutureDependencyGraph(500, TimeUnit.MILLISECONDS));
         }
     }
 
+    /**
+     * Like {@link #rebuildDependencyGraphAsync()}, but for changes to the configuration of a single item,
+     * so that only the edges of an {@link AbstractProject} are computed again.
+     * Creating, renaming or deleting items needs a full rebuild.
+     *
+     * @see DependencyGraph#rebuild(Collection)
+     */
+    @Restricted(NoExternalUse.class)
+    public Future<DependencyGraph> rebuildDependencyGraphAsync(@NonNull Item changed) {
+        if (!(changed instanceof AbstractProject<?, ?> p)) {
+            return rebuildDependencyGraphAsync();
+        }
+        synchronized (dependencyGraphLock) {
+            dependencyGraphChanges.add(p);
+            return Objects.requireNonNullElseGet(scheduledFutureDependencyGraph, () -> scheduledFutureDependencyGraph = scheduleCalculationOfFutureDependencyGraph(500, TimeUnit.MILLISECONDS));
+        }
+    }
+
     private Future<DependencyGraph> scheduleCalculationOfFutureDependencyGraph(int delay, TimeUnit unit) {
         return Timer.get().schedule(() -> {
             // Wait for the currently running calculation to finish without blocking rebuildDependencyGraphAsync()
@@ -5140,13 +5192,25 @@ public class Jenkins extends AbstractCIBase implements DirectlyModifiableTopLeve
                 temp.get();
             }
 
+            boolean full;
+            Set<AbstractProject> changes;
             synchronized (dependencyGraphLock) {
                 // Scheduled future becomes the currently calculating future
                 calculatingFutureDependencyGraph = scheduledFutureDependencyGraph;
                 scheduledFutureDependencyGraph = null;
+                full = fullDependencyGraphRebuild;
+                changes = dependencyGraphChanges;
+                fullDependencyGraphRebuild = false;
+                dependencyGraphChanges = new HashSet<>();
             }
 
-            rebuildDependencyGraph();
+            if (full) {
+                rebuildDependencyGraph();
+            } else {
+                synchronized (dependencyGraphBuildLock) {
+                    dependencyGraph = dependencyGraph.rebuild(changes);
+                }
+            }
 
             synchronized (dependencyGraphLock) {
                 calculatingFutureDependencyGraph = null;
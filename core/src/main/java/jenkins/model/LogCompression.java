@@ -0,0 +1,209 @@
+package jenkins.model;
+
+import com.google.common.annotations.VisibleForTesting;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.Functions;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.ExceptionCatchingThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import jenkins.util.SystemProperties;
+import jenkins.util.io.BlockGzip;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.DoNotUse;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Compresses the logs of completed builds in the background.
+ *
+ * <p>
+ * Logs are compressed one at a time, reading no faster than {@link #BYTES_PER_SECOND},
+ * into a {@code log.gz} written by {@link BlockGzip}, after which the original is deleted.
+ * {@link Run#getLogFile}, {@link Run#getLogInputStream} and {@link Run#getLogText} already read either form,
+ * so this is transparent to viewers of the console.
+ * The space reclaimed so far is logged, and available from {@link #getBytesReclaimed}.
+ *
+ * <p>
+ * Compressions are only scheduled as builds complete, so those still waiting for {@link #DELAY} when Jenkins stops are not done,
+ * and those logs stay uncompressed.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public final class LogCompression extends RunListener<Run<?, ?>> {
+
+    private static final Logger LOGGER = Logger.getLogger(LogCompression.class.getName());
+
+    /**
+     * Whether logs of completed builds get compressed.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ boolean ENABLED = SystemProperties.getBoolean(LogCompression.class.getName() + ".enabled");
+
+    /**
+     * The {@link Deflater} level to compress with, from 1 (fastest) to 9 (smallest).
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ int LEVEL = SystemProperties.getInteger(LogCompression.class.getName() + ".level", Deflater.DEFAULT_COMPRESSION);
+
+    /**
+     * How fast logs are read for compression, so as not to compete with builds for I/O.
+     * 0 or less means no limit.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ long BYTES_PER_SECOND = SystemProperties.getLong(LogCompression.class.getName() + ".bytesPerSecond", 8L * 1024 * 1024);
+
+    /**
+     * How long after a build is finalized its log gets compressed, in seconds, as it is most likely to be viewed then.
+     * Logs of builds finalized less than this long before a restart are not compressed.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ long DELAY = SystemProperties.getLong(LogCompression.class.getName() + ".delay", 60L);
+
+    /**
+     * Compresses one log at a time, on its own thread since {@link Throttled} sleeps.
+     */
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+            new ExceptionCatchingThreadFactory(new NamingThreadFactory(new DaemonThreadFactory(), "LogCompression")));
+
+    public LogCompression() {
+        executor.setKeepAliveTime(5, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private final AtomicLong logsCompressed = new AtomicLong();
+    private final AtomicLong bytesReclaimed = new AtomicLong();
+
+    @Override
+    public void onFinalized(Run<?, ?> run) {
+        if (!ENABLED || Util.isOverridden(Run.class, run.getClass(), "getLogFile")) {
+            return;
+        }
+        executor.schedule(() -> compress(run), DELAY, TimeUnit.SECONDS);
+    }
+
+    private void compress(Run<?, ?> run) {
+        File log = new File(run.getRootDir(), "log");
+        File gz = new File(run.getRootDir(), "log.gz");
+        if (run.isLogUpdated() || !log.isFile() || gz.exists()) {
+            return;
+        }
+        long before = log.length();
+        try {
+            try (InputStream in = new Throttled(Files.newInputStream(log.toPath()))) {
+                BlockGzip.compress(in, gz, LEVEL);
+            }
+            if (log.length() != before) {
+                // something appended to it meanwhile
+                throw new IOException(log + " changed while being compressed");
+            }
+            Files.delete(log.toPath());
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(log.isFile() ? Level.WARNING : Level.FINE, "Failed to compress " + log, x);
+            try {
+                Files.deleteIfExists(gz.toPath());
+                BlockGzip.deleteIndex(gz);
+            } catch (IOException x2) {
+                LOGGER.log(Level.WARNING, "Failed to delete " + gz, x2);
+            }
+            return;
+        }
+        long reclaimed = before - gz.length();
+        long logs = logsCompressed.incrementAndGet();
+        long total = bytesReclaimed.addAndGet(reclaimed);
+        LOGGER.fine(() -> "Compressed the log of " + run + ", reclaiming " + Functions.humanReadableByteSize(reclaimed)
+                + " (" + logs + " logs and " + Functions.humanReadableByteSize(total) + " so far)");
+    }
+
+    /**
+     * How many logs have been compressed since startup.
+     */
+    public long getLogsCompressed() {
+        return logsCompressed.get();
+    }
+
+    /**
+     * How much space compressing logs has reclaimed since startup, in bytes.
+     */
+    public long getBytesReclaimed() {
+        return bytesReclaimed.get();
+    }
+
+    @NonNull
+    public static LogCompression get() {
+        return ExtensionList.lookupSingleton(LogCompression.class);
+    }
+
+    /**
+     * Waits for all logs currently being compressed, not those still waiting for {@link #DELAY}.
+     */
+    @VisibleForTesting
+    @Restricted(DoNotUse.class)
+    public static void await() throws Exception {
+        get().executor.submit(() -> {}).get();
+    }
+
+    /**
+     * Reads no faster than {@link #BYTES_PER_SECOND}.
+     */
+    private static final class Throttled extends FilterInputStream {
+        private final long start = System.nanoTime();
+        private long read;
+
+        Throttled(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                account(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(@NonNull byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                account(n);
+            }
+            return n;
+        }
+
+        private void account(int n) throws IOException {
+            read += n;
+            long budget = BYTES_PER_SECOND;
+            if (budget <= 0) {
+                return;
+            }
+            long due = (long) (read * 1e9 / budget);
+            long ahead = due - (System.nanoTime() - start);
+            if (ahead > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(ahead);
+                } catch (InterruptedException x) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package jenkins.model.labels;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Label;
+import hudson.model.labels.LabelAtom;
+import hudson.model.labels.LabelExpression;
+import hudson.model.labels.LabelVisitor;
+import hudson.util.VariableResolver;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * A {@link Label} compiled into a predicate over {@link LabelBitSet}s.
+ *
+ * <p>
+ * Runs of {@code &&} and {@code ||} over atoms are flattened into a single mask,
+ * so that common expressions like {@code linux && docker} or {@code a || b || c}
+ * match in a couple of word-wise operations instead of walking the expression tree
+ * and looking up every atom by name as {@link Label#matches(VariableResolver)} does.
+ */
+@Restricted(NoExternalUse.class)
+public abstract class CompiledLabelExpression {
+
+    private static final Logger LOGGER = Logger.getLogger(CompiledLabelExpression.class.getName());
+
+    private CompiledLabelExpression() {}
+
+    /**
+     * Evaluates this expression for an entity owning the given atoms.
+     */
+    public abstract boolean matches(@NonNull LabelBitSet labels);
+
+    /**
+     * Compiles a label.
+     *
+     * @return null if the label is (or contains) a type unknown to core, whose semantics may differ from the
+     * built-in ones; such labels must keep being evaluated by {@link Label#matches(VariableResolver)}
+     */
+    @CheckForNull
+    public static CompiledLabelExpression compile(@NonNull Label label) {
+        try {
+            return label.accept(COMPILER, null);
+        } catch (Unsupported x) {
+            return null;
+        } catch (RuntimeException x) {
+            LOGGER.log(Level.FINE, x, () -> "failed to compile " + label.getExpression());
+            return null;
+        }
+    }
+
+    private static final class Atom extends CompiledLabelExpression {
+        private final int id;
+        private final long[] mask;
+
+        Atom(int id) {
+            this.id = id;
+            this.mask = LabelBitSet.set(new long[0], id);
+        }
+
+        @Override
+        public boolean matches(@NonNull LabelBitSet labels) {
+            return labels.get(id);
+        }
+    }
+
+    private static final class AllOf extends CompiledLabelExpression {
+        private final long[] mask;
+
+        AllOf(long[] mask) {
+            this.mask = mask;
+        }
+
+        @Override
+        public boolean matches(@NonNull LabelBitSet labels) {
+            return labels.containsAll(mask);
+        }
+    }
+
+    private static final class AnyOf extends CompiledLabelExpression {
+        private final long[] mask;
+
+        AnyOf(long[] mask) {
+            this.mask = mask;
+        }
+
+        @Override
+        public boolean matches(@NonNull LabelBitSet labels) {
+            return labels.intersects(mask);
+        }
+    }
+
+    private static final class Not extends CompiledLabelExpression {
+        private final CompiledLabelExpression base;
+
+        Not(CompiledLabelExpression base) {
+            this.base = base;
+        }
+
+        @Override
+        public boolean matches(@NonNull LabelBitSet labels) {
+            return !base.matches(labels);
+        }
+    }
+
+    private enum Op {
+        AND, OR, IFF, IMPLIES
+    }
+
+    private static final class Binary extends CompiledLabelExpression {
+        private final CompiledLabelExpression lhs, rhs;
+        private final Op op;
+
+        Binary(CompiledLabelExpression lhs, CompiledLabelExpression rhs, Op op) {
+            this.lhs = lhs;
+            this.rhs = rhs;
+            this.op = op;
+        }
+
+        @Override
+        public boolean matches(@NonNull LabelBitSet labels) {
+            boolean a = lhs.matches(labels);
+            return switch (op) {
+                case AND -> a && rhs.matches(labels);
+                case OR -> a || rhs.matches(labels);
+                case IFF -> a == rhs.matches(labels);
+                case IMPLIES -> !a || rhs.matches(labels);
+            };
+        }
+    }
+
+    /**
+     * Thrown when encountering a label type whose semantics are unknown.
+     */
+    private static final class Unsupported extends RuntimeException {
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static long[] or(long[] a, long[] b) {
+        long[] r = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int i = 0; i < b.length; i++) {
+            r[i] |= b[i];
+        }
+        return r;
+    }
+
+    private static final LabelVisitor<CompiledLabelExpression, Void> COMPILER = new LabelVisitor<>() {
+        @Override
+        public CompiledLabelExpression onAtom(LabelAtom a, Void param) {
+            check(a, LabelAtom.class);
+            return new Atom(LabelBitSet.idOf(a.getName()));
+        }
+
+        @Override
+        public CompiledLabelExpression onParen(LabelExpression.Paren p, Void param) {
+            check(p, LabelExpression.Paren.class);
+            return compile(p.base);
+        }
+
+        @Override
+        public CompiledLabelExpression onNot(LabelExpression.Not p, Void param) {
+            check(p, LabelExpression.Not.class);
+            return new Not(compile(p.base));
+        }
+
+        @Override
+        public CompiledLabelExpression onAnd(LabelExpression.And p, Void param) {
+            CompiledLabelExpression lhs = compile(p.lhs), rhs = compile(p.rhs);
+            long[] l = allOfMask(lhs), r = allOfMask(rhs);
+            if (l != null && r != null) {
+                return new AllOf(or(l, r));
+            }
+            return new Binary(lhs, rhs, Op.AND);
+        }
+
+        @Override
+        public CompiledLabelExpression onOr(LabelExpression.Or p, Void param) {
+            CompiledLabelExpression lhs = compile(p.lhs), rhs = compile(p.rhs);
+            long[] l = anyOfMask(lhs), r = anyOfMask(rhs);
+            if (l != null && r != null) {
+                return new AnyOf(or(l, r));
+            }
+            return new Binary(lhs, rhs, Op.OR);
+        }
+
+        @Override
+        public CompiledLabelExpression onIff(LabelExpression.Iff p, Void param) {
+            return new Binary(compile(p.lhs), compile(p.rhs), Op.IFF);
+        }
+
+        @Override
+        public CompiledLabelExpression onImplies(LabelExpression.Implies p, Void param) {
+            return new Binary(compile(p.lhs), compile(p.rhs), Op.IMPLIES);
+        }
+
+        private CompiledLabelExpression compile(Label l) {
+            CompiledLabelExpression c = l.accept(this, null);
+            if (c == null) {
+                throw new Unsupported();
+            }
+            return c;
+        }
+
+        private void check(Label l, Class<? extends Label> expected) {
+            if (l.getClass() != expected) {
+                // a subclass may override matches
+                throw new Unsupported();
+            }
+        }
+
+        @CheckForNull
+        private long[] allOfMask(CompiledLabelExpression c) {
+            return c instanceof Atom a ? a.mask : c instanceof AllOf all ? all.mask : null;
+        }
+
+        @CheckForNull
+        private long[] anyOfMask(CompiledLabelExpression c) {
+            return c instanceof Atom a ? a.mask : c instanceof AnyOf any ? any.mask : null;
+        }
+    };
+}
@@ -0,0 +1,134 @@
+package jenkins.model.labels;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Label;
+import hudson.model.labels.LabelAtom;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * An immutable set of {@link LabelAtom}s, such as the labels of a node, stored as a bit set
+ * over process-wide interned atom ids.
+ * {@link CompiledLabelExpression}s are evaluated against it with a few word-wise operations
+ * rather than by name lookups.
+ */
+@Restricted(NoExternalUse.class)
+public final class LabelBitSet {
+
+    /**
+     * Atom name to id. Only ever grows, but there are only as many entries as distinct atom names ever seen.
+     */
+    private static final ConcurrentMap<String, Integer> IDS = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private final long[] words;
+
+    /**
+     * The atoms this was created from, for labels that cannot be {@linkplain CompiledLabelExpression compiled}.
+     */
+    private final Collection<LabelAtom> atoms;
+
+    private LabelBitSet(long[] words, Collection<LabelAtom> atoms) {
+        this.words = words;
+        this.atoms = atoms;
+    }
+
+    /**
+     * Gets the interned id of the atom with the given name.
+     */
+    static int idOf(@NonNull String name) {
+        Integer id = IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        return IDS.computeIfAbsent(name, k -> NEXT_ID.getAndIncrement());
+    }
+
+    /**
+     * Creates the bit set of the given atoms, as in {@link Label#matches(Collection)}.
+     */
+    @NonNull
+    public static LabelBitSet of(@NonNull Collection<LabelAtom> atoms) {
+        long[] words = new long[0];
+        for (LabelAtom a : atoms) {
+            words = set(words, idOf(a.getName()));
+        }
+        return new LabelBitSet(words, Collections.unmodifiableCollection(atoms));
+    }
+
+    /**
+     * The atoms in this set.
+     */
+    @NonNull
+    public Collection<LabelAtom> getAtoms() {
+        return atoms;
+    }
+
+    static long[] set(long[] words, int id) {
+        int w = id >>> 6;
+        if (w >= words.length) {
+            words = Arrays.copyOf(words, w + 1);
+        }
+        words[w] |= 1L << id;
+        return words;
+    }
+
+    boolean get(int id) {
+        int w = id >>> 6;
+        return w < words.length && (words[w] & 1L << id) != 0;
+    }
+
+    /**
+     * Whether every bit of the mask is set.
+     */
+    boolean containsAll(long[] mask) {
+        if (mask.length > words.length) {
+            for (int i = words.length; i < mask.length; i++) {
+                if (mask[i] != 0) {
+                    return false;
+                }
+            }
+        }
+        for (int i = 0; i < Math.min(mask.length, words.length); i++) {
+            if ((words[i] & mask[i]) != mask[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether any bit of the mask is set.
+     */
+    boolean intersects(long[] mask) {
+        for (int i = 0; i < Math.min(mask.length, words.length); i++) {
+            if ((words[i] & mask[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        // canonical since the last word always has a bit set
+        return this == o || o instanceof LabelBitSet that && Arrays.equals(words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return "LabelBitSet" + Arrays.toString(words);
+    }
+}
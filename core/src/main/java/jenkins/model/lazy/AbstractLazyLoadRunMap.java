@@ -25,6 +25,7 @@
 package jenkins.model.lazy;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.model.Job;
 import hudson.model.Run;
 import hudson.model.RunMap;
@@ -50,6 +51,7 @@ import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import jenkins.util.MemoryReductionUtil;
+import jenkins.util.SystemProperties;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.Beta;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
@@ -103,20 +105,45 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
         }
     };
 
+    /**
+     * Whether {@link #core} lists all the build directories yet.
+     * Until then it only holds builds looked up by number, each found by checking for its own directory.
+     */
+    private volatile boolean scanned;
+
+    /**
+     * Gets {@link #core}, first listing the build directories if that has been deferred.
+     */
+    private CopyOnWriteMap.Tree<Integer, BuildReference<R>> core() {
+        if (!scanned) {
+            synchronized (this) {
+                if (!scanned && dir != null) {
+                    loadNumberOnDisk(true);
+                }
+            }
+        }
+        return core;
+    }
+
+    private BuildReferenceMapAdapter<R> adapter() {
+        core();
+        return adapter;
+    }
+
     @Override
     public Set<Integer> keySet() {
-        return adapter.keySet();
+        return adapter().keySet();
     }
 
     @Override
     public Collection<R> values() {
-        return adapter.values();
+        return adapter().values();
     }
 
     @Override
     public Set<Map.Entry<Integer, R>> entrySet() {
         assert baseDirInitialized();
-        return adapter.entrySet();
+        return adapter().entrySet();
     }
 
     /**
@@ -135,8 +162,8 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
     protected void initBaseDir(File dir) {
         assert this.dir == null;
         this.dir = dir;
-        if (dir != null)
-            loadNumberOnDisk();
+        if (dir != null && !DEFER_SCAN)
+            loadNumberOnDisk(false);
     }
 
     /**
@@ -166,18 +193,24 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
      * @since 1.507
      */
     public synchronized void purgeCache() {
-        loadNumberOnDisk();
+        loadNumberOnDisk(false);
     }
 
     private static final Pattern BUILD_NUMBER = Pattern.compile("[0-9]+");
 
-    private void loadNumberOnDisk() {
+    /**
+     * @param keep whether to keep builds already known, rather than forgetting loaded ones
+     */
+    private void loadNumberOnDisk(boolean keep) {
         String[] kids = dir.list();
         if (kids == null) {
             // the job may have just been created
             kids = MemoryReductionUtil.EMPTY_STRING_ARRAY;
         }
         TreeMap<Integer, BuildReference<R>> newBuildRefsMap = new TreeMap<>(core.comparator());
+        if (keep) {
+            newBuildRefsMap.putAll(core);
+        }
         var allower = createLoadAllower();
         for (String s : kids) {
             if (!BUILD_NUMBER.matcher(s).matches()) {
@@ -186,7 +219,9 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
             }
             try {
                 int buildNumber = Integer.parseInt(s);
-                if (allower.test(buildNumber)) {
+                if (newBuildRefsMap.containsKey(buildNumber)) {
+                    // looked up before the directories were listed
+                } else if (allower.test(buildNumber)) {
                     newBuildRefsMap.put(buildNumber, new BuildReference<>(s));
                 } else {
                     LOGGER.fine(() -> "declining to consider " + buildNumber + " in " + dir);
@@ -196,6 +231,7 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
             }
         }
         core.replaceBy(newBuildRefsMap);
+        scanned = true;
     }
 
     @Restricted(NoExternalUse.class)
@@ -217,10 +253,10 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
     public final void recognizeNumber(int buildNumber) {
         if (new File(dir, Integer.toString(buildNumber)).isDirectory()) {
             synchronized (this) {
-                if (this.core.containsKey(buildNumber)) {
+                if (core().containsKey(buildNumber)) {
                     LOGGER.fine(() -> "already knew about " + buildNumber + " in " + dir);
                 } else {
-                    core.put(buildNumber, new BuildReference<>(String.valueOf(buildNumber)));
+                    core().put(buildNumber, new BuildReference<>(String.valueOf(buildNumber)));
                     LOGGER.fine(() -> "recognizing " + buildNumber + " in " + dir);
                 }
             }
@@ -236,17 +272,17 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
 
     @Override
     public boolean isEmpty() {
-        return adapter.isEmpty();
+        return adapter().isEmpty();
     }
 
     @Override
     public boolean containsKey(Object value) {
-        return adapter.containsKey(value);
+        return adapter().containsKey(value);
     }
 
     @Override
     public boolean containsValue(Object value) {
-        return adapter.containsValue(value);
+        return adapter().containsValue(value);
     }
 
     /**
@@ -278,42 +314,42 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
      */
     @Override
     public SortedMap<Integer, R> subMap(Integer fromKey, Integer toKey) {
-        return adapter.subMap(fromKey, toKey);
+        return adapter().subMap(fromKey, toKey);
     }
 
     @Override
     public SortedMap<Integer, R> headMap(Integer toKey) {
-        return adapter.headMap(toKey);
+        return adapter().headMap(toKey);
     }
 
     @Override
     public SortedMap<Integer, R> tailMap(Integer fromKey) {
-        return adapter.tailMap(fromKey);
+        return adapter().tailMap(fromKey);
     }
 
     @Override
     public Integer firstKey() {
-        return adapter.firstKey();
+        return adapter().firstKey();
     }
 
     @Override
     public Integer lastKey() {
-        return adapter.lastKey();
+        return adapter().lastKey();
     }
 
     public R newestBuild() {
-        Map.Entry<Integer, R> entry = adapter.firstEntry();
+        Map.Entry<Integer, R> entry = adapter().firstEntry();
         return entry == null ? null : entry.getValue();
     }
 
     public R oldestBuild() {
-        Map.Entry<Integer, R> entry = adapter.lastEntry();
+        Map.Entry<Integer, R> entry = adapter().lastEntry();
         return entry == null ? null : entry.getValue();
     }
 
     @Override
     public R get(Object key) {
-        return adapter.get(key);
+        return adapter().get(key);
     }
 
     public R get(int n) {
@@ -329,7 +365,7 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
      * @since 2.14
      */
     public boolean runExists(int number) {
-        return this.core.containsKey(number);
+        return core().containsKey(number);
     }
 
     /**
@@ -345,9 +381,9 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
      */
     public @CheckForNull R search(final int n, final Direction d) {
         if (d == Direction.EXACT) {
-            return this.adapter.get(n);
+            return adapter().get(n);
         }
-        Map.Entry<Integer, R> entry = (d == Direction.ASC ? adapter.reversed() : adapter).tailMap(n).firstEntry();
+        Map.Entry<Integer, R> entry = (d == Direction.ASC ? adapter().reversed() : adapter()).tailMap(n).firstEntry();
         return entry == null ? null : entry.getValue();
     }
 
@@ -368,16 +404,21 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
         }
         R v;
         if ((v = ref.get()) != null) {
+            BuildCache.get().requested(true);
             return v; // already in memory
         }
         // otherwise fall through to load
         synchronized (this) {
             if ((v = ref.get()) != null) {
+                BuildCache.get().requested(true);
                 return v; // already in memory
             }
+            BuildCache.get().requested(false);
             int n = ref.number;
             if (allowLoad(n)) {
+                long start = System.nanoTime();
                 v = load(n);
+                BuildCache.get().loaded(start);
                 // save if build unloadable
                 if (v == null) {
                     ref.setUnloadable();
@@ -393,7 +434,113 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
     }
 
     public R getByNumber(int n) {
-        return adapter.get(n);
+        if (!scanned) {
+            BuildReference<R> ref = probe(n);
+            if (ref != null) {
+                return resolveBuildRef(ref);
+            }
+        }
+        return adapter().get(n);
+    }
+
+    /**
+     * Finds a build by checking for its directory, if the build directories have not been listed yet.
+     *
+     * @return null if the directories have been listed, or the build was not found this way
+     */
+    private synchronized @CheckForNull BuildReference<R> probe(int n) {
+        if (scanned || dir == null || n <= 0) {
+            return null;
+        }
+        BuildReference<R> ref = core.get(n);
+        if (ref == null && new File(dir, String.valueOf(n)).isDirectory() && allowLoad(n)) {
+            ref = new BuildReference<>(String.valueOf(n));
+            core.put(n, ref);
+        }
+        return ref;
+    }
+
+    /**
+     * Like {@link #newestBuild()}, but if the build directories have not been listed yet,
+     * first checking for the build just below the given number, which is normally the newest one.
+     *
+     * @param next a number above that of any build, such as {@link hudson.model.Job#getNextBuildNumber}
+     */
+    @Restricted(NoExternalUse.class)
+    public final R newestBuild(int next) {
+        if (!scanned) {
+            BuildReference<R> ref = probe(next - 1);
+            R r = ref != null ? resolveBuildRef(ref) : null;
+            if (r != null) {
+                return r;
+            }
+        }
+        return newestBuild();
+    }
+
+    /**
+     * Gets the numbers of all known builds, newest first, without loading any.
+     */
+    @Restricted(NoExternalUse.class)
+    protected final Set<Integer> numbersOnDisk() {
+        return Collections.unmodifiableSet(core().keySet());
+    }
+
+    /**
+     * Gets a build only if it is already in memory.
+     *
+     * @return null if it is not loaded, or could not be loaded before
+     */
+    @Restricted(NoExternalUse.class)
+    protected final @CheckForNull R getIfLoaded(int n) {
+        BuildReference<R> ref = core.get(n);
+        return ref != null ? ref.get() : null;
+    }
+
+    /**
+     * Checks whether a build failed to load before, or may not be loaded.
+     */
+    @Restricted(NoExternalUse.class)
+    protected final boolean isUnloadable(int n) {
+        BuildReference<R> ref = core().get(n);
+        return ref == null || ref.isUnloadable();
+    }
+
+    /**
+     * Gets the summary kept along with a completed build which may no longer be in memory.
+     *
+     * @return null unless {@link BuildReference.DefaultHolderFactory#MODE_PROPERTY} is {@code summary} and the build was held
+     */
+    @Restricted(NoExternalUse.class)
+    protected final @CheckForNull BuildSummary getHeldSummary(int n) {
+        BuildReference<R> ref = core.get(n);
+        return ref != null ? ref.getSummary() : null;
+    }
+
+    /**
+     * Notes that a build has completed, so that its summary may be kept along with it.
+     */
+    @Restricted(NoExternalUse.class)
+    protected final void completed(int n) {
+        BuildReference<R> ref = core.get(n);
+        if (ref != null) {
+            ref.completed();
+        }
+    }
+
+    /**
+     * Starts loading a build in the background, unless it is in memory already.
+     *
+     * @see BuildPrefetcher
+     */
+    @Restricted(NoExternalUse.class)
+    protected final void prefetch(int n) {
+        BuildReference<R> ref = core.get(n);
+        File d = dir;
+        if (ref == null || ref.isUnloadable() || ref.get() != null || d == null) {
+            return;
+        }
+        BuildPrefetcher.prefetch(new File(d, String.valueOf(n)), () -> getByNumber(n));
     }
 
     /**
@@ -402,12 +549,40 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
     @Restricted(NoExternalUse.class)
     public synchronized int maxNumberOnDisk() {
         try {
-            return this.core.firstKey();
+            return core().firstKey();
         } catch (NoSuchElementException ignored) {
             return 0;
         }
     }
 
+    /**
+     * Like {@link #maxNumberOnDisk}, but if the build directories have not been listed yet,
+     * only looks through their names, without recording any builds.
+     * Unlike it, this also counts directories of builds which {@link #allowLoad} declines.
+     *
+     * @return the highest number of any build directory, or 0 if there are none
+     */
+    @Restricted(NoExternalUse.class)
+    public synchronized int maxDirectoryNumber() {
+        if (scanned || dir == null) {
+            return maxNumberOnDisk();
+        }
+        int max = core.isEmpty() ? 0 : core.firstKey();
+        String[] kids = dir.list();
+        if (kids != null) {
+            for (String s : kids) {
+                if (BUILD_NUMBER.matcher(s).matches()) {
+                    try {
+                        max = Math.max(max, Integer.parseInt(s));
+                    } catch (NumberFormatException e) {
+                        // matched BUILD_NUMBER but not an int?
+                    }
+                }
+            }
+        }
+        return max;
+    }
+
     protected final synchronized void proposeNewNumber(int number) throws IllegalStateException {
         if (number <= maxNumberOnDisk()) {
             throw new IllegalStateException("JENKINS-27530: cannot create a build with number " + number + " since that (or higher) is already in use among " + keySet());
@@ -425,7 +600,7 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
     @Override
     public synchronized R put(Integer key, R r) {
         int n = getNumberOf(r);
-        BuildReference<R> old = core.put(n, createReference(r));
+        BuildReference<R> old = core().put(n, createReference(r));
         return resolveBuildRef(old);
     }
 
@@ -435,12 +610,13 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
         for (Map.Entry<? extends Integer, ? extends R> entry : newData.entrySet()) {
             newWrapperData.put(entry.getKey(), createReference(entry.getValue()));
         }
+        // kept when the build directories are listed later
         core.putAll(newWrapperData);
     }
 
     @Override
     public R remove(Object key) {
-        return adapter.remove(key);
+        return adapter().remove(key);
     }
 
     /**
@@ -502,7 +678,7 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
     protected abstract Class<R> getBuildClass();
 
     public synchronized boolean removeValue(R run) {
-        return core.remove(getNumberOf(run)) != null;
+        return core().remove(getNumberOf(run)) != null;
     }
 
     /**
@@ -514,7 +690,8 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
             copy.put(getNumberOf(r), createReference(r));
         }
 
-        this.core.replaceBy(copy);
+        core.replaceBy(copy);
+        scanned = true;
     }
 
     @Override
@@ -625,5 +802,11 @@ public abstract class AbstractLazyLoadRunMap<R> extends AbstractMap<Integer, R>
         }
     }
 
+    /**
+     * Escape hatch to list build directories as soon as a job is loaded, rather than when first needed.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ boolean DEFER_SCAN = SystemProperties.getBoolean(AbstractLazyLoadRunMap.class.getName() + ".deferScan", true);
+
     static final Logger LOGGER = Logger.getLogger(AbstractLazyLoadRunMap.class.getName());
 }
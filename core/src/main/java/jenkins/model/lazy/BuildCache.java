@@ -0,0 +1,230 @@
+package jenkins.model.lazy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.Run;
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Holds loaded builds of all jobs in memory up to a fixed number of builds and an approximate number of bytes,
+ * used when {@link BuildReference.DefaultHolderFactory#MODE_PROPERTY} is {@code bounded}.
+ *
+ * <p>
+ * Builds are evicted in approximately least recently used order (the "clock" algorithm,
+ * so that {@link BuildReference#get} does not need to take a lock).
+ * An evicted build is still weakly referenced, so that it is not loaded a second time while something else uses it,
+ * for example a build which is still running.
+ * The weight of a build is the size of its {@code build.xml}, which is only a rough approximation of its size in memory.
+ *
+ * <p>
+ * Also records how often builds are found in memory, and how long it takes to load those which are not,
+ * whatever the mode.
+ */
+@Restricted(NoExternalUse.class)
+public final class BuildCache {
+
+    /**
+     * Maximum number of builds held, or 0 for no limit.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ int MAX_ENTRIES = SystemProperties.getInteger(BuildCache.class.getName() + ".maxEntries", 10_000);
+
+    /**
+     * Maximum total weight of builds held, or 0 for no limit.
+     * Defaults to a tenth of the maximum heap size.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ long MAX_BYTES = SystemProperties.getLong(BuildCache.class.getName() + ".maxBytes", Runtime.getRuntime().maxMemory() / 10);
+
+    private static final BuildCache INSTANCE = new BuildCache(BuildCache::weigh);
+
+    private final ToLongFunction<Object> weigher;
+
+    /**
+     * Held builds, oldest first. Guarded by {@code this}.
+     */
+    private final ArrayDeque<BoundedHolder<?>> clock = new ArrayDeque<>();
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    BuildCache(ToLongFunction<Object> weigher) {
+        this.weigher = weigher;
+    }
+
+    @NonNull
+    public static BuildCache get() {
+        return INSTANCE;
+    }
+
+    private static long weigh(Object referent) {
+        if (referent instanceof Run<?, ?> r) {
+            long length = r.getDataFileLength();
+            // only unknown for new builds or those loaded from a binary cache
+            return length >= 0 ? length : new File(r.getRootDir(), "build.xml").length();
+        }
+        return 0;
+    }
+
+    /**
+     * Creates a holder for a newly loaded or created build, possibly evicting others.
+     */
+    @NonNull
+    public <R> BuildReference.Holder<R> hold(@NonNull R referent) {
+        BoundedHolder<R> h = new BoundedHolder<>(referent, weigher.applyAsLong(referent));
+        admit(h, referent);
+        return h;
+    }
+
+    private synchronized <R> void admit(BoundedHolder<R> h, R referent) {
+        if (h.strong != null && h.queued) {
+            return;
+        }
+        h.strong = referent;
+        if (!h.queued) {
+            h.queued = true;
+            clock.addLast(h);
+            weight += h.weight;
+        }
+        evict();
+    }
+
+    private void evict() {
+        assert Thread.holdsLock(this);
+        while (!clock.isEmpty() && ((MAX_ENTRIES > 0 && clock.size() > MAX_ENTRIES) || (MAX_BYTES > 0 && weight > MAX_BYTES))) {
+            BoundedHolder<?> h = clock.pollFirst();
+            if (h.referenced) {
+                // second chance
+                h.referenced = false;
+                clock.addLast(h);
+                continue;
+            }
+            h.queued = false;
+            h.strong = null;
+            weight -= h.weight;
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Evicts everything, for example after lowering the limits.
+     */
+    public synchronized void clear() {
+        for (BoundedHolder<?> h : clock) {
+            h.queued = false;
+            h.strong = null;
+        }
+        clock.clear();
+        weight = 0;
+    }
+
+    /**
+     * Records whether a build was already in memory when requested.
+     */
+    void requested(boolean hit) {
+        (hit ? hits : misses).increment();
+    }
+
+    /**
+     * Records loading a build from disk.
+     *
+     * @param start {@link System#nanoTime()} before loading
+     */
+    void loaded(long start) {
+        loads.increment();
+        loadNanos.add(System.nanoTime() - start);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getLoadNanos() {
+        return loadNanos.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public synchronized int getSize() {
+        return clock.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    @NonNull
+    public JSONObject toJSON() {
+        long n = getLoads();
+        return new JSONObject()
+                .element("hits", getHits())
+                .element("misses", getMisses())
+                .element("loads", n)
+                .element("meanLoadMicros", n == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(getLoadNanos()) / n)
+                .element("evictions", getEvictions())
+                .element("size", getSize())
+                .element("bytes", getWeight())
+                .element("maxEntries", MAX_ENTRIES)
+                .element("maxBytes", MAX_BYTES);
+    }
+
+    @Override
+    public String toString() {
+        return "BuildCache" + toJSON();
+    }
+
+    private final class BoundedHolder<R> implements BuildReference.Holder<R> {
+        private final WeakReference<R> weak;
+        private final long weight;
+        /** Set while in {@link #clock}. */
+        private volatile R strong;
+        private volatile boolean referenced;
+        /** Guarded by the cache. */
+        private boolean queued;
+
+        BoundedHolder(R referent, long weight) {
+            this.weak = new WeakReference<>(referent);
+            this.weight = weight;
+        }
+
+        @Override
+        @CheckForNull
+        public R get() {
+            R r = strong;
+            if (r != null) {
+                referenced = true;
+                return r;
+            }
+            r = weak.get();
+            if (r != null) {
+                // still in use elsewhere, so worth holding again
+                admit(this, r);
+            }
+            return r;
+        }
+    }
+}
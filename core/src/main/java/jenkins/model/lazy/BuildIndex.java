@@ -0,0 +1,266 @@
+package jenkins.model.lazy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.Result;
+import hudson.model.Run;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Append-only file in the builds directory of a job recording a {@link BuildSummary} of each completed build,
+ * so that build history can be listed without loading {@code build.xml} files.
+ *
+ * <p>
+ * A record is appended when a build completes or is saved afterwards, and when a build is deleted;
+ * the last record for a build number wins. Builds completed before the index existed are added when they are next loaded.
+ * The file is read once, then kept in memory, and rewritten when most of its records are obsolete.
+ * A record truncated by a crash is ignored.
+ */
+@Restricted(NoExternalUse.class)
+public final class BuildIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildIndex.class.getName());
+
+    /**
+     * Escape hatch to neither read nor write index files.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ boolean DISABLED = SystemProperties.getBoolean(BuildIndex.class.getName() + ".disabled");
+
+    static final String FILE_NAME = "index";
+
+    private static final int MAGIC = 0x4a424931; // JBI1
+
+    /**
+     * Followed by the fields of a {@link BuildSummary}.
+     */
+    private static final byte PUT = 1;
+
+    /**
+     * Followed by the build number.
+     */
+    private static final byte REMOVE = 2;
+
+    private final File dir;
+    private Map<Integer, BuildSummary> summaries;
+    private int records;
+
+    public BuildIndex(@NonNull File dir) {
+        this.dir = dir;
+    }
+
+    @NonNull
+    public File getDir() {
+        return dir;
+    }
+
+    private File getFile() {
+        return new File(dir, FILE_NAME);
+    }
+
+    /**
+     * Gets the summary of a completed build, if recorded.
+     */
+    @CheckForNull
+    public synchronized BuildSummary get(int number) {
+        return load().get(number);
+    }
+
+    /**
+     * Records the current state of a completed build.
+     */
+    public void put(@NonNull Run<?, ?> run) {
+        put(BuildSummary.of(run));
+    }
+
+    public synchronized void put(@NonNull BuildSummary summary) {
+        if (summary.equals(load().get(summary.number()))) {
+            return;
+        }
+        summaries.put(summary.number(), summary);
+        append(out -> {
+            out.writeByte(PUT);
+            write(out, summary);
+        });
+    }
+
+    /**
+     * Records a build if it is not already.
+     */
+    public synchronized void putIfAbsent(@NonNull Run<?, ?> run) {
+        if (!load().containsKey(run.getNumber())) {
+            put(run);
+        }
+    }
+
+    public synchronized void remove(int number) {
+        if (load().remove(number) == null) {
+            return;
+        }
+        append(out -> {
+            out.writeByte(REMOVE);
+            out.writeInt(number);
+        });
+    }
+
+    private Map<Integer, BuildSummary> load() {
+        assert Thread.holdsLock(this);
+        if (summaries != null) {
+            return summaries;
+        }
+        summaries = new HashMap<>();
+        records = 0;
+        if (DISABLED) {
+            return summaries;
+        }
+        File file = getFile();
+        // anything unreadable must be rewritten before appending to it
+        boolean damaged = true;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Unknown format");
+            }
+            while (true) {
+                int op = in.read();
+                if (op == -1) {
+                    damaged = false;
+                    break;
+                }
+                if (op == PUT) {
+                    BuildSummary s = read(in);
+                    summaries.put(s.number(), s);
+                } else if (op == REMOVE) {
+                    summaries.remove(in.readInt());
+                } else {
+                    LOGGER.warning(() -> "Unknown record type " + op + " in " + file + "; ignoring the rest");
+                    break;
+                }
+                records++;
+            }
+        } catch (NoSuchFileException x) {
+            // nothing recorded yet
+            damaged = false;
+        } catch (EOFException x) {
+            LOGGER.fine(() -> "Ignoring truncated record in " + file);
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(Level.WARNING, "Failed to read " + file, x);
+        }
+        if (damaged || records > 2 * summaries.size() + 64) {
+            compact();
+        }
+        return summaries;
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private void append(Writer w) {
+        if (DISABLED) {
+            return;
+        }
+        File file = getFile();
+        try (OutputStream os = Files.newOutputStream(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+            if (file.length() == 0) {
+                out.writeInt(MAGIC);
+            }
+            w.write(out);
+            records++;
+        } catch (IOException x) {
+            LOGGER.log(Level.WARNING, "Failed to update " + file, x);
+            return;
+        }
+        if (records > 2 * summaries.size() + 64) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the file with only the current summaries.
+     */
+    private void compact() {
+        File file = getFile();
+        File tmp = new File(dir, FILE_NAME + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                out.writeInt(MAGIC);
+                for (BuildSummary s : summaries.values()) {
+                    out.writeByte(PUT);
+                    write(out, s);
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            records = summaries.size();
+        } catch (IOException x) {
+            LOGGER.log(Level.WARNING, "Failed to compact " + file, x);
+        }
+    }
+
+    private static void write(DataOutputStream out, BuildSummary s) throws IOException {
+        out.writeInt(s.number());
+        out.writeLong(s.timestamp());
+        out.writeLong(s.duration());
+        writeString(out, s.result() != null ? s.result().toString() : null);
+        out.writeLong(s.queueId());
+        writeString(out, s.displayName());
+        writeString(out, s.description());
+        out.writeBoolean(s.hasBadges());
+    }
+
+    private static BuildSummary read(DataInputStream in) throws IOException {
+        int number = in.readInt();
+        long timestamp = in.readLong();
+        long duration = in.readLong();
+        String result = readString(in);
+        long queueId = in.readLong();
+        String displayName = readString(in);
+        String description = readString(in);
+        boolean hasBadges = in.readBoolean();
+        return new BuildSummary(number, timestamp, duration, result != null ? Result.fromString(result) : null, queueId, displayName, description, hasBadges);
+    }
+
+    private static void writeString(DataOutputStream out, @CheckForNull String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(b.length);
+            out.write(b);
+        }
+    }
+
+    @CheckForNull
+    private static String readString(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0) {
+            return null;
+        }
+        if (len > in.available() && len > 1 << 24) {
+            throw new IOException("Implausible string length " + len);
+        }
+        byte[] b = new byte[len];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
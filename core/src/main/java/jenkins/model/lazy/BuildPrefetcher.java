@@ -0,0 +1,131 @@
+package jenkins.model.lazy;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.security.ImpersonatingExecutorService;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Loads builds in the background, so that pages listing them do not wait for each {@code build.xml} to be read in turn.
+ *
+ * <p>
+ * Builds are loaded into their {@link BuildReference} on a pool shared by all jobs, where the thread rendering the page finds them.
+ * Builds of a single job are still loaded one at a time, as loading holds the lock of its {@link AbstractLazyLoadRunMap},
+ * but that overlaps with rendering the builds before them, and with loading builds of other jobs.
+ * Prefetching is best effort: requests beyond what the pool can queue are dropped.
+ */
+@Restricted(NoExternalUse.class)
+public final class BuildPrefetcher {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildPrefetcher.class.getName());
+
+    /**
+     * Escape hatch to load builds only when they are needed.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ boolean DISABLED = SystemProperties.getBoolean(BuildPrefetcher.class.getName() + ".disabled");
+
+    /**
+     * How many builds ahead of the one being rendered to load.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ int DEPTH = SystemProperties.getInteger(BuildPrefetcher.class.getName() + ".depth", 30);
+
+    private static final int THREADS = SystemProperties.getInteger(BuildPrefetcher.class.getName() + ".threads", 8);
+
+    private static final int QUEUE = SystemProperties.getInteger(BuildPrefetcher.class.getName() + ".queue", 1000);
+
+    private static ExecutorService executor;
+
+    /**
+     * Build directories being prefetched.
+     */
+    private static final Set<File> pending = ConcurrentHashMap.newKeySet();
+
+    private BuildPrefetcher() {}
+
+    private static synchronized ExecutorService executor() {
+        if (executor == null) {
+            ThreadPoolExecutor base = new ThreadPoolExecutor(THREADS, THREADS, 5L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(QUEUE), new NamingThreadFactory(new DaemonThreadFactory(), "BuildPrefetcher"));
+            base.allowCoreThreadTimeOut(true);
+            // builds are loaded regardless of who asked for the page
+            executor = new ImpersonatingExecutorService(base, ACL.SYSTEM2);
+        }
+        return executor;
+    }
+
+    /**
+     * Loads a build in the background.
+     *
+     * @param buildDir the directory of the build
+     * @param load loads the build into its {@link BuildReference}
+     */
+    static void prefetch(@NonNull File buildDir, @NonNull Runnable load) {
+        if (DISABLED || !pending.add(buildDir)) {
+            return;
+        }
+        try {
+            executor().execute(() -> {
+                try {
+                    load.run();
+                } catch (RuntimeException x) {
+                    LOGGER.log(Level.FINE, "Failed to prefetch " + buildDir, x);
+                } finally {
+                    pending.remove(buildDir);
+                }
+            });
+        } catch (RejectedExecutionException x) {
+            pending.remove(buildDir);
+            LOGGER.finer(() -> "Not prefetching " + buildDir + " as too many builds are queued");
+        }
+    }
+
+    /**
+     * Walks through items, handing each to {@code prefetch} when it comes within {@code depth} items of being returned.
+     */
+    @NonNull
+    public static <T> Iterator<T> readAhead(@NonNull Iterator<T> base, int depth, @NonNull Consumer<? super T> prefetch) {
+        return new Iterator<>() {
+            private final Deque<T> window = new ArrayDeque<>();
+
+            @Override
+            public boolean hasNext() {
+                while (window.size() <= depth && base.hasNext()) {
+                    T t = base.next();
+                    prefetch.accept(t);
+                    window.add(t);
+                }
+                return !window.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return window.remove();
+            }
+        };
+    }
+}
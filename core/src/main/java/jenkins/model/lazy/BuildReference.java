@@ -1,5 +1,6 @@
 package jenkins.model.lazy;
 
+import com.google.common.annotations.VisibleForTesting;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
@@ -62,6 +63,27 @@ public final class BuildReference<R> {
         holder = findHolder(referent);
     }
 
+    /**
+     * Called once the build has completed, and whenever it is saved afterwards, to let its summary be recorded.
+     */
+    /*package*/ void completed() {
+        if (holder instanceof DefaultHolderFactory.SummaryHolder<R> h) {
+            R r = h.get();
+            if (r != null) {
+                h.update(r);
+            }
+        }
+    }
+
+    /**
+     * Gets the summary of a completed build, kept even once the build itself has been collected.
+     *
+     * @return null unless the build was held in {@code summary} mode
+     */
+    /*package*/ @CheckForNull BuildSummary getSummary() {
+        return holder instanceof DefaultHolderFactory.SummaryHolder<R> h ? h.summary : null;
+    }
+
     /**
      * check if reference marked as unloadable
      */
@@ -181,6 +203,13 @@ public final class BuildReference<R> {
      * <dd>Use {@link WeakReference}s. Builds will be kept only until the next full garbage collection cycle.
      * <dt>{@code strong}
      * <dd>Use strong references. Builds will still be loaded lazily, but once loaded, will not be released.
+     * <dt>{@code bounded}
+     * <dd>Keep builds in the {@link BuildCache} shared by all jobs, which releases the least recently used ones
+     * once a configured number of builds or bytes is exceeded.
+     * <dt>{@code summary}
+     * <dd>Keep completed builds only while they are in use, but keep their {@link BuildSummary},
+     * which is what build history lists them from, loading the full record again only on demand.
+     * Builds are kept strongly while running.
      * <dt>{@code none}
      * <dd>Do not hold onto builds at all. Mainly offered as an option for the purpose of reproducing lazy-loading bugs.
      * </dl>
@@ -189,7 +218,8 @@ public final class BuildReference<R> {
     @Extension(ordinal = Double.NEGATIVE_INFINITY) public static final class DefaultHolderFactory implements HolderFactory {
 
         public static final String MODE_PROPERTY = "jenkins.model.lazy.BuildReference.MODE";
-        private static final String mode = SystemProperties.getString(MODE_PROPERTY);
+        @VisibleForTesting
+        /*package*/ static /*final*/ String mode = SystemProperties.getString(MODE_PROPERTY);
 
         @Override public <R> Holder<R> make(R referent) {
             if (mode == null || mode.equals("soft")) {
@@ -198,6 +228,10 @@ public final class BuildReference<R> {
                 return new WeakHolder<>(referent);
             } else if (mode.equals("strong")) {
                 return new StrongHolder<>(referent);
+            } else if (mode.equals("bounded")) {
+                return BuildCache.get().hold(referent);
+            } else if (mode.equals("summary")) {
+                return new SummaryHolder<>(referent);
             } else if (mode.equals("none")) {
                 return NoHolder.getInstance();
             } else {
@@ -217,6 +251,35 @@ public final class BuildReference<R> {
             }
         }
 
+        /**
+         * Holds a build weakly once completed, and its {@link BuildSummary} strongly.
+         */
+        static final class SummaryHolder<R> extends WeakReference<R> implements Holder<R> {
+            /** Set while the build is running. */
+            private volatile R building;
+            /** Set once the build has completed. */
+            volatile BuildSummary summary;
+
+            SummaryHolder(R referent) {
+                super(referent);
+                update(referent);
+            }
+
+            void update(R referent) {
+                if (referent instanceof Run<?, ?> run && !run.isBuilding()) {
+                    summary = BuildSummary.of(run);
+                    building = null;
+                } else {
+                    building = referent;
+                }
+            }
+
+            @Override public R get() {
+                R r = building;
+                return r != null ? r : super.get();
+            }
+        }
+
         private static final class StrongHolder<R> implements Holder<R> {
             private final R referent;
 
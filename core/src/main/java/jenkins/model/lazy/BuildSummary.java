@@ -0,0 +1,25 @@
+package jenkins.model.lazy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Result;
+import hudson.model.Run;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * The fields of a completed {@link Run} needed to list it, as recorded in a {@link BuildIndex}.
+ *
+ * @param displayName the custom display name, if any
+ * @param hasBadges whether {@link Run#getBadgeActions} was not empty
+ */
+@Restricted(NoExternalUse.class)
+public record BuildSummary(int number, long timestamp, long duration, @CheckForNull Result result, long queueId,
+                           @CheckForNull String displayName, @CheckForNull String description, boolean hasBadges) {
+
+    @NonNull
+    public static BuildSummary of(@NonNull Run<?, ?> run) {
+        return new BuildSummary(run.getNumber(), run.getTimeInMillis(), run.getDuration(), run.getResult(), run.getQueueId(),
+                run.hasCustomDisplayName() ? run.getDisplayName() : null, run.getDescription(), !run.getBadgeActions().isEmpty());
+    }
+}
@@ -0,0 +1,149 @@
+package jenkins.model.lazy;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Util;
+import hudson.model.BallColor;
+import hudson.model.BuildBadgeAction;
+import hudson.model.Job;
+import hudson.model.ParameterValue;
+import hudson.model.Result;
+import hudson.model.Run;
+import java.io.File;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import jenkins.model.HistoricalBuild;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * A {@link HistoricalBuild} answering from a {@link BuildSummary},
+ * loading the actual {@link Run} only for the parameters and badges.
+ */
+@Restricted(NoExternalUse.class)
+public final class IndexedBuild implements HistoricalBuild {
+
+    private final Job<?, ?> job;
+    private final BuildSummary summary;
+
+    public IndexedBuild(@NonNull Job<?, ?> job, @NonNull BuildSummary summary) {
+        this.job = job;
+        this.summary = summary;
+    }
+
+    @NonNull
+    public BuildSummary getSummary() {
+        return summary;
+    }
+
+    /**
+     * Loads the build this summarizes.
+     *
+     * @return null if it has been deleted or cannot be loaded
+     */
+    @CheckForNull
+    public Run<?, ?> load() {
+        return job.getBuildByNumber(summary.number());
+    }
+
+    /**
+     * Starts loading the build this summarizes in the background.
+     *
+     * @see BuildPrefetcher
+     */
+    public void prefetch() {
+        BuildPrefetcher.prefetch(new File(job.getBuildDir(), String.valueOf(summary.number())), this::load);
+    }
+
+    @Override
+    public int getNumber() {
+        return summary.number();
+    }
+
+    @NonNull
+    @Override
+    public String getUrl() {
+        return job.getUrl() + summary.number() + '/';
+    }
+
+    @Override
+    public String getDisplayName() {
+        return summary.displayName() != null ? summary.displayName() : "#" + summary.number();
+    }
+
+    @Override
+    public String getFullDisplayName() {
+        return job.getFullDisplayName() + ' ' + getDisplayName();
+    }
+
+    @CheckForNull
+    @Override
+    public String getDescription() {
+        return summary.description();
+    }
+
+    @Override
+    public long getQueueId() {
+        return summary.queueId();
+    }
+
+    @CheckForNull
+    @Override
+    public Result getResult() {
+        return summary.result();
+    }
+
+    @NonNull
+    @Override
+    public List<ParameterValue> getParameterValues() {
+        Run<?, ?> run = load();
+        return run != null ? run.getParameterValues() : List.of();
+    }
+
+    @Override
+    public boolean isBuilding() {
+        return false;
+    }
+
+    @NonNull
+    @Override
+    public BallColor getIconColor() {
+        Result result = summary.result();
+        return result != null ? result.color : BallColor.NOTBUILT;
+    }
+
+    @NonNull
+    @Override
+    public Calendar getTimestamp() {
+        GregorianCalendar c = new GregorianCalendar();
+        c.setTimeInMillis(summary.timestamp());
+        return c;
+    }
+
+    @Override
+    public long getTimeInMillis() {
+        return summary.timestamp();
+    }
+
+    @NonNull
+    @Override
+    public String getDurationString() {
+        return Util.getTimeSpanString(summary.duration());
+    }
+
+    @NonNull
+    @Override
+    public List<BuildBadgeAction> getBadgeActions() {
+        if (!summary.hasBadges()) {
+            return List.of();
+        }
+        Run<?, ?> run = load();
+        return run != null ? run.getBadgeActions() : List.of();
+    }
+
+    @Override
+    public String toString() {
+        return job.getFullName() + " #" + summary.number();
+    }
+}
@@ -109,8 +109,9 @@ public abstract class LazyBuildMixIn<JobT extends Job<JobT, RunT> & Queue.Task &
     @SuppressWarnings("unchecked")
     public synchronized void onLoad(ItemGroup<? extends Item> parent, String name) throws IOException {
         RunMap<RunT> _builds = createBuildRunMap();
-        int max = _builds.maxNumberOnDisk();
         int next = asJob().getNextBuildNumber();
+        // any build directory may have been restored by hand, so look at all their names, though without loading the builds yet
+        int max = _builds.maxDirectoryNumber();
         if (next <= max) {
             LOGGER.log(Level.FINE, "nextBuildNumber {0} detected in {1} with highest build number {2}; adjusting", new Object[] {next, asJob(), max});
             asJob().fastUpdateNextBuildNumber(max + 1);
@@ -193,6 +194,11 @@ public abstract class LazyBuildMixIn<JobT extends Job<JobT, RunT> & Queue.Task &
             RunT lastBuild = getBuildClass().getConstructor(asJob().getClass()).newInstance(asJob());
             var rootDir = lastBuild.getRootDir().toPath();
             if (Files.isDirectory(rootDir)) {
+               // some other build directory may have appeared since onLoad, so look at all of them now
+               int max = builds.maxNumberOnDisk();
+               if (asJob().getNextBuildNumber() <= max) {
+                   asJob().fastUpdateNextBuildNumber(max + 1);
+               }
                LOGGER.warning(() -> "JENKINS-23152: " + rootDir + " already existed; will not overwrite with " + lastBuild + " but will create a fresh build #" + asJob().getNextBuildNumber());
                return newBuild();
             }
@@ -256,7 +262,7 @@ public abstract class LazyBuildMixIn<JobT extends Job<JobT, RunT> & Queue.Task &
      * Suitable for {@link Job#getLastBuild}.
      */
     public final @CheckForNull RunT getLastBuild() {
-        return builds.newestBuild();
+        return builds.newestBuild(asJob().getNextBuildNumber());
     }
 
     /**
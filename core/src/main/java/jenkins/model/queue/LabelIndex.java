@@ -0,0 +1,88 @@
+package jenkins.model.queue;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.Queue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Groups offers (typically the {@link Queue.JobOffer}s of parked executors) by their {@link Node},
+ * so that the offers able to serve a given {@link Label} can be looked up from {@link Label#getNodes()}
+ * rather than by testing every offer against the label.
+ *
+ * <p>
+ * Lookups are memoized per label. An instance is therefore only valid as long as the set of offers it was built from,
+ * such as during a single {@link Queue#maintain()} pass; node or label changes are picked up by the next instance.
+ *
+ * @param <T> the type of offer
+ */
+@Restricted(NoExternalUse.class)
+public final class LabelIndex<T> {
+
+    private final List<T> all;
+
+    private final Map<Node, List<T>> byNode = new LinkedHashMap<>();
+
+    private final Map<Label, List<T>> byLabel = new HashMap<>();
+
+    /**
+     * @param offers the offers to index
+     * @param nodeOf finds the node of an offer; offers without a node are only returned for a {@code null} label
+     */
+    public LabelIndex(@NonNull Collection<? extends T> offers, @NonNull Function<? super T, ? extends Node> nodeOf) {
+        this.all = Collections.unmodifiableList(new ArrayList<>(offers));
+        for (T offer : offers) {
+            Node node = nodeOf.apply(offer);
+            if (node != null) {
+                byNode.computeIfAbsent(node, k -> new ArrayList<>()).add(offer);
+            }
+        }
+    }
+
+    /**
+     * Gets the offers whose node belongs to the given label.
+     *
+     * @param label the label, or null for any node
+     * @return all offers if the label is null, otherwise the offers of nodes {@linkplain Label#contains(Node) contained} in the label
+     */
+    @NonNull
+    public List<T> get(@CheckForNull Label label) {
+        if (label == null) {
+            return all;
+        }
+        return byLabel.computeIfAbsent(label, this::find);
+    }
+
+    private List<T> find(Label label) {
+        Set<Node> nodes = label.getNodes();
+        List<T> r = new ArrayList<>();
+        // walk whichever side is smaller
+        if (nodes.size() < byNode.size()) {
+            for (Node n : nodes) {
+                List<T> offers = byNode.get(n);
+                if (offers != null) {
+                    r.addAll(offers);
+                }
+            }
+        } else {
+            for (Map.Entry<Node, List<T>> e : byNode.entrySet()) {
+                if (nodes.contains(e.getKey())) {
+                    r.addAll(e.getValue());
+                }
+            }
+        }
+        return Collections.unmodifiableList(r);
+    }
+}
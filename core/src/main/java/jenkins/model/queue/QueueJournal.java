@@ -0,0 +1,218 @@
+package jenkins.model.queue;
+
+import com.thoughtworks.xstream.XStream;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Queue;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Append-only log of changes to the {@link Queue} since it was last saved,
+ * so that persisting a change costs as much as the change rather than a rewrite of the whole queue.
+ *
+ * <p>
+ * Records are only ever appended. Replaying them on top of the last saved {@link Queue.State} is idempotent,
+ * so it does not matter whether a crash happens before or after the journal is {@linkplain #reset() reset}
+ * following a full save. A record truncated by a crash is ignored.
+ *
+ * <p>
+ * Not thread safe; {@link Queue} serializes access to it.
+ */
+@Restricted(NoExternalUse.class)
+public final class QueueJournal {
+
+    private static final Logger LOGGER = Logger.getLogger(QueueJournal.class.getName());
+
+    /**
+     * Followed by the length and XML of a {@link Queue.State} holding the item and the {@link QueueIdStrategy} state.
+     */
+    private static final byte ENTER = 1;
+
+    /**
+     * Followed by the item id.
+     */
+    private static final byte LEAVE = 2;
+
+    private final File file;
+    private final XStream xs;
+    private DataOutputStream out;
+    private int records;
+
+    public QueueJournal(@NonNull File file, @NonNull XStream xs) {
+        this.file = file;
+        this.xs = xs;
+    }
+
+    @NonNull
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Number of records appended since the journal was last {@linkplain #reset() reset}.
+     */
+    public int size() {
+        return records;
+    }
+
+    /**
+     * Records items entering the queue, or changing in a way that should survive a restart.
+     *
+     * @param delta the items and the state of {@link QueueIdStrategy} after they were created
+     */
+    public void entered(@NonNull Queue.State delta) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (Writer w = new OutputStreamWriter(buf, StandardCharsets.UTF_8)) {
+            xs.toXML(delta, w);
+        }
+        DataOutputStream out = open();
+        out.writeByte(ENTER);
+        out.writeInt(buf.size());
+        buf.writeTo(out);
+        records++;
+    }
+
+    /**
+     * Records an item leaving the queue.
+     */
+    public void left(long id) throws IOException {
+        DataOutputStream out = open();
+        out.writeByte(LEAVE);
+        out.writeLong(id);
+        records++;
+    }
+
+    /**
+     * Writes out the records appended so far, which may otherwise be buffered.
+     */
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    private DataOutputStream open() throws IOException {
+        if (out == null) {
+            Files.createDirectories(file.toPath().getParent());
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+        }
+        return out;
+    }
+
+    /**
+     * Discards all records, once the queue has been saved in full.
+     */
+    public void reset() throws IOException {
+        close();
+        Files.deleteIfExists(file.toPath());
+        records = 0;
+    }
+
+    public void close() throws IOException {
+        if (out != null) {
+            try {
+                out.close();
+            } finally {
+                out = null;
+            }
+        }
+    }
+
+    /**
+     * Applies the records to the state last saved.
+     *
+     * @param state the state read from the queue file, or an empty one; updated in place
+     * @return the number of records applied
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public int replay(@NonNull Queue.State state) throws IOException {
+        if (!file.isFile()) {
+            return 0;
+        }
+        Map<Long, Queue.Item> items = new LinkedHashMap<>();
+        List<Object> others = new ArrayList<>();
+        for (Object o : (List) state.items) {
+            if (o instanceof Queue.Item item) {
+                items.put(item.getId(), item);
+            } else {
+                others.add(o); // legacy task entries
+            }
+        }
+        int n = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            records:
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException x) {
+                    break;
+                }
+                try {
+                    switch (type) {
+                        case ENTER -> {
+                            byte[] xml = new byte[in.readInt()];
+                            in.readFully(xml);
+                            apply(xml, state, items);
+                        }
+                        case LEAVE -> items.remove(in.readLong());
+                        default -> {
+                            // cannot resynchronize, so keep what was read so far
+                            LOGGER.log(Level.WARNING, "Ignoring the rest of {0} after an unknown record type {1}", new Object[] {file, type});
+                            break records;
+                        }
+                    }
+                } catch (EOFException x) {
+                    LOGGER.log(Level.FINE, "Ignoring truncated record at the end of {0}", file);
+                    break;
+                }
+                n++;
+            }
+        }
+        state.items.clear();
+        ((List) state.items).addAll(others);
+        state.items.addAll(items.values());
+        records = n;
+        return n;
+    }
+
+    private void apply(byte[] xml, Queue.State state, Map<Long, Queue.Item> items) {
+        Object o;
+        try {
+            o = xs.fromXML(new ByteArrayInputStream(xml));
+        } catch (RuntimeException x) {
+            // as with a broken item in queue.xml, throw this one away
+            LOGGER.log(Level.WARNING, "Failed to read a record of " + file, x);
+            return;
+        }
+        if (o instanceof Queue.State delta) {
+            state.properties.putAll(delta.properties);
+            for (Queue.Item item : delta.items) {
+                if (item != null && item.task != null) {
+                    items.put(item.getId(), item);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package jenkins.model.queue;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.model.Queue;
+import hudson.model.queue.CauseOfBlockage;
+import hudson.model.queue.QueueListener;
+import hudson.model.queue.QueueTaskDispatcher;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Statistics about {@link Queue} maintenance, for finding out what makes the queue slow.
+ *
+ * <p>
+ * Records how long each phase of {@link Queue#maintain()} takes, how long items stay in each state,
+ * how long each {@link QueueTaskDispatcher} takes and how often it vetoes,
+ * and which kinds of {@link CauseOfBlockage} keep items from running.
+ * Exposed as JSON by {@link QueueMetricsAction}.
+ */
+@Restricted(NoExternalUse.class)
+public final class QueueMetrics {
+
+    /**
+     * Escape hatch to avoid even the small cost of recording.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ boolean DISABLED = SystemProperties.getBoolean(QueueMetrics.class.getName() + ".disabled");
+
+    private static final QueueMetrics INSTANCE = new QueueMetrics();
+
+    /**
+     * Phases of {@link Queue#maintain()}.
+     */
+    public enum Phase {
+        /** Finding the executors waiting for work. */
+        PARKED,
+        /** Re-evaluating blocked items. */
+        BLOCKED,
+        /** Moving items out of the waiting list. */
+        WAITING,
+        /** Sorting buildable items. */
+        SORT,
+        /** Allocating buildable items to executors. */
+        ALLOCATE,
+        /** The whole pass. */
+        TOTAL
+    }
+
+    private volatile Map<Phase, Histogram> phases;
+    private volatile Map<String, Histogram> timeInState;
+    private final ConcurrentMap<String, DispatcherStats> dispatchers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> causes = new ConcurrentHashMap<>();
+
+    /**
+     * State and the time it was entered, by item id.
+     */
+    private final ConcurrentMap<Long, State> states = new ConcurrentHashMap<>();
+
+    /**
+     * Fewest tracked items before looking for items no longer in the queue.
+     */
+    static final int PRUNE_MIN = 256;
+
+    /**
+     * Number of tracked items beyond which those no longer in the queue are looked for.
+     */
+    private volatile int pruneAt = PRUNE_MIN;
+
+    private QueueMetrics() {
+        reset();
+    }
+
+    @NonNull
+    public static QueueMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records the duration of a phase.
+     *
+     * @param start {@link System#nanoTime()} at the start of the phase
+     */
+    public void phase(@NonNull Phase phase, long start) {
+        if (DISABLED) {
+            return;
+        }
+        phases.get(phase).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+    }
+
+    /**
+     * Records a call to {@link QueueTaskDispatcher#canRun} or {@link QueueTaskDispatcher#canTake}.
+     *
+     * @param start {@link System#nanoTime()} before the call
+     * @param veto whether the dispatcher returned a {@link CauseOfBlockage} (or failed)
+     */
+    public void dispatched(@NonNull QueueTaskDispatcher d, boolean canTake, long start, boolean veto) {
+        if (DISABLED) {
+            return;
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        DispatcherStats s = dispatchers.computeIfAbsent(d.getClass().getName(), k -> new DispatcherStats());
+        (canTake ? s.canTake : s.canRun).record(micros);
+        if (veto) {
+            (canTake ? s.canTakeVetoes : s.canRunVetoes).increment();
+        }
+    }
+
+    /**
+     * Records that maintenance found an item blocked.
+     */
+    public void blocked(@NonNull CauseOfBlockage cause) {
+        if (DISABLED) {
+            return;
+        }
+        causes.computeIfAbsent(cause.getClass().getName(), k -> new LongAdder()).increment();
+    }
+
+    private void entered(Queue.Item item, String state) {
+        if (DISABLED) {
+            return;
+        }
+        long now = System.nanoTime();
+        // items are recreated every time they move, even if staying blocked, so only record actual transitions
+        State previous = states.get(item.getId());
+        if (previous != null && previous.name.equals(state)) {
+            return;
+        }
+        states.put(item.getId(), new State(state, now));
+        if (previous != null) {
+            previous.record(now);
+        } else if (states.size() > pruneAt) {
+            prune(item.getId());
+        }
+    }
+
+    private void left(Queue.LeftItem item) {
+        State previous = states.remove(item.getId());
+        if (previous != null && !DISABLED) {
+            previous.record(System.nanoTime());
+        }
+    }
+
+    /**
+     * Forgets items no longer in the queue, which may have left it without a {@link QueueListener#onLeft} notification.
+     * Only done once the number of tracked items has doubled since the last time, so that it costs little per item.
+     * Items entering the queue along with {@code entering} may not be in its snapshot yet, and lose their measurement.
+     */
+    private void prune(long entering) {
+        Set<Long> ids = new HashSet<>();
+        ids.add(entering);
+        try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
+            for (Queue.Item i : Queue.getInstance().getItems()) {
+                ids.add(i.getId());
+            }
+        }
+        states.keySet().retainAll(ids);
+        pruneAt = Math.max(PRUNE_MIN, 2 * states.size());
+    }
+
+    /**
+     * Number of items whose state is being tracked.
+     */
+    int trackedItems() {
+        return states.size();
+    }
+
+    /**
+     * Discards everything recorded so far.
+     */
+    public void reset() {
+        Map<Phase, Histogram> p = new TreeMap<>();
+        for (Phase phase : Phase.values()) {
+            p.put(phase, new Histogram());
+        }
+        Map<String, Histogram> t = new TreeMap<>();
+        for (String state : new String[] {"waiting", "blocked", "buildable"}) {
+            t.put(state, new Histogram());
+        }
+        phases = p;
+        timeInState = t;
+        dispatchers.clear();
+        causes.clear();
+    }
+
+    @NonNull
+    public JSONObject toJSON() {
+        JSONObject maintain = new JSONObject();
+        for (Map.Entry<Phase, Histogram> e : phases.entrySet()) {
+            maintain.element(e.getKey().name().toLowerCase(Locale.ENGLISH), e.getValue().toJSON());
+        }
+        JSONObject inState = new JSONObject();
+        for (Map.Entry<String, Histogram> e : timeInState.entrySet()) {
+            inState.element(e.getKey(), e.getValue().toJSON());
+        }
+        JSONObject d = new JSONObject();
+        for (Map.Entry<String, DispatcherStats> e : new TreeMap<>(dispatchers).entrySet()) {
+            d.element(e.getKey(), e.getValue().toJSON());
+        }
+        JSONObject c = new JSONObject();
+        for (Map.Entry<String, LongAdder> e : new TreeMap<>(causes).entrySet()) {
+            c.element(e.getKey(), e.getValue().sum());
+        }
+        return new JSONObject()
+                .element("maintainMicros", maintain)
+                .element("timeInStateMillis", inState)
+                .element("dispatcherMicros", d)
+                .element("causesOfBlockage", c);
+    }
+
+    private final class State {
+        final String name;
+        final long since;
+
+        State(String name, long since) {
+            this.name = name;
+            this.since = since;
+        }
+
+        void record(long now) {
+            timeInState.get(name).record(TimeUnit.NANOSECONDS.toMillis(now - since));
+        }
+    }
+
+    private static final class DispatcherStats {
+        final Histogram canRun = new Histogram();
+        final LongAdder canRunVetoes = new LongAdder();
+        final Histogram canTake = new Histogram();
+        final LongAdder canTakeVetoes = new LongAdder();
+
+        JSONObject toJSON() {
+            return new JSONObject()
+                    .element("canRun", canRun.toJSON().element("vetoes", canRunVetoes.sum()))
+                    .element("canTake", canTake.toJSON().element("vetoes", canTakeVetoes.sum()));
+        }
+    }
+
+    /**
+     * Histogram of non-negative values with power-of-two buckets.
+     */
+    static final class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long value) {
+            value = Math.max(value, 0);
+            // bucket i holds values up to 2^i - 1
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        long getCount() {
+            return count.sum();
+        }
+
+        JSONObject toJSON() {
+            long n = count.sum();
+            long total = sum.sum();
+            JSONObject b = new JSONObject();
+            for (int i = 0; i < buckets.length(); i++) {
+                long v = buckets.get(i);
+                if (v > 0) {
+                    b.element(i == Long.SIZE ? "+Inf" : Long.toString((1L << i) - 1), v);
+                }
+            }
+            return new JSONObject()
+                    .element("count", n)
+                    .element("sum", total)
+                    .element("mean", n == 0 ? 0 : total / n)
+                    .element("max", max.get())
+                    .element("buckets", b);
+        }
+    }
+
+    @Extension
+    public static final class Listener extends QueueListener {
+        @Override
+        public void onEnterWaiting(Queue.WaitingItem wi) {
+            get().entered(wi, "waiting");
+        }
+
+        @Override
+        public void onEnterBlocked(Queue.BlockedItem bi) {
+            get().entered(bi, "blocked");
+        }
+
+        @Override
+        public void onEnterBuildable(Queue.BuildableItem bi) {
+            get().entered(bi, "buildable");
+        }
+
+        @Override
+        public void onLeft(Queue.LeftItem li) {
+            get().left(li);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package jenkins.model.queue;
+
+import hudson.Extension;
+import hudson.model.InvisibleAction;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+import org.kohsuke.stapler.json.JsonHttpResponse;
+
+/**
+ * Exports {@link QueueMetrics} as JSON at {@code /queue-metrics/}.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class QueueMetricsAction extends InvisibleAction implements RootAction {
+    @Override
+    public String getUrlName() {
+        return "queue-metrics";
+    }
+
+    public HttpResponse doIndex() {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        return new JsonHttpResponse(QueueMetrics.get().toJSON());
+    }
+
+    @RequirePOST
+    public HttpResponse doReset() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        QueueMetrics.get().reset();
+        return HttpResponses.ok();
+    }
+}
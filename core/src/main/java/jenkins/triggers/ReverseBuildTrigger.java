@@ -47,6 +47,8 @@ import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.model.listeners.ItemListener;
 import hudson.model.listeners.RunListener;
+import hudson.model.queue.ScheduleRequest;
+import hudson.model.queue.ScheduleResult;
 import hudson.model.queue.Tasks;
 import hudson.security.ACL;
 import hudson.security.ACLContext;
@@ -281,6 +283,9 @@ public final class ReverseBuildTrigger extends Trigger<Job> implements Dependenc
                 }
                 triggers = new ArrayList<>(_triggers);
             }
+            // submit all downstream jobs as one batch, so the queue is locked and maintained once
+            List<String> names = new ArrayList<>();
+            List<ScheduleRequest> requests = new ArrayList<>();
             for (final ReverseBuildTrigger trigger : triggers) {
                 if (trigger.shouldTrigger(r, listener)) {
                     // Make SpotBugs happy.
@@ -292,13 +297,23 @@ public final class ReverseBuildTrigger extends Trigger<Job> implements Dependenc
                         continue;
                     }
                     String name = ModelHyperlinkNote.encodeTo(trigger.job) + " #" + trigger.job.getNextBuildNumber();
-                    if (ParameterizedJobMixIn.scheduleBuild2(trigger.job, -1, new CauseAction(new Cause.UpstreamCause(r))) != null) {
-                        listener.getLogger().println(hudson.tasks.Messages.BuildTrigger_Triggering(name));
+                    ScheduleRequest request = ParameterizedJobMixIn.scheduleRequest(trigger.job, -1, new CauseAction(new Cause.UpstreamCause(r)));
+                    if (request != null) {
+                        names.add(name);
+                        requests.add(request);
                     } else {
                         listener.getLogger().println(hudson.tasks.Messages.BuildTrigger_InQueue(name));
                     }
                 }
             }
+            List<ScheduleResult> results = Jenkins.get().getQueue().scheduleAll(requests);
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i).getItem() != null) {
+                    listener.getLogger().println(hudson.tasks.Messages.BuildTrigger_Triggering(names.get(i)));
+                } else {
+                    listener.getLogger().println(hudson.tasks.Messages.BuildTrigger_InQueue(names.get(i)));
+                }
+            }
         }
     }
 
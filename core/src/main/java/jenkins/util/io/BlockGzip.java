@@ -0,0 +1,176 @@
+package jenkins.util.io;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Compresses files as a series of gzip members of bounded size, so that reading can start anywhere without decompressing what precedes.
+ *
+ * <p>
+ * The result is a valid gzip file, which {@link GZIPInputStream} and other tools read as a whole.
+ * Where each member starts is recorded in a {@code .blocks} file next to it,
+ * as pairs of big-endian longs giving the offset in the uncompressed data and in the compressed file,
+ * followed by a last pair giving the total lengths.
+ */
+@Restricted(NoExternalUse.class)
+public final class BlockGzip {
+
+    /**
+     * How many uncompressed bytes go into each member.
+     */
+    private static final int BLOCK_SIZE = SystemProperties.getInteger(BlockGzip.class.getName() + ".blockSize", 1024 * 1024);
+
+    private BlockGzip() {}
+
+    @NonNull
+    private static File blocksOf(@NonNull File gz) {
+        return new File(gz.getParentFile(), gz.getName() + ".blocks");
+    }
+
+    /**
+     * Deletes the block index of a compressed file, such as when the file is being replaced.
+     */
+    public static void deleteIndex(@NonNull File gz) throws IOException {
+        Files.deleteIfExists(blocksOf(gz).toPath());
+    }
+
+    /**
+     * Compresses data into a file, along with its block index.
+     */
+    public static void compress(@NonNull InputStream in, @NonNull File gz) throws IOException {
+        compress(in, gz, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Compresses data into a file, along with its block index.
+     *
+     * @param level the {@link Deflater} compression level
+     */
+    public static void compress(@NonNull InputStream in, @NonNull File gz, int level) throws IOException {
+        File blocks = blocksOf(gz);
+        try (FileChannel ch = FileChannel.open(gz.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream index = new DataOutputStream(Files.newOutputStream(blocks.toPath()))) {
+            OutputStream file = new FilterOutputStream(Channels.newOutputStream(ch)) {
+                @Override
+                public void write(@NonNull byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    // each member is finished without closing the file
+                    flush();
+                }
+            };
+            byte[] buf = new byte[BLOCK_SIZE];
+            long uncompressed = 0;
+            int len = in.readNBytes(buf, 0, buf.length);
+            // even empty data gets a member, as an empty file is not valid gzip
+            do {
+                index.writeLong(uncompressed);
+                index.writeLong(ch.position());
+                try (GZIPOutputStream member = new GZIPOutputStream(file, 65536) {
+                    {
+                        def.setLevel(level);
+                    }
+                }) {
+                    member.write(buf, 0, len);
+                }
+                uncompressed += len;
+            } while ((len = in.readNBytes(buf, 0, buf.length)) > 0);
+            index.writeLong(uncompressed);
+            index.writeLong(ch.position());
+        } catch (IOException | RuntimeException x) {
+            Files.deleteIfExists(blocks.toPath());
+            throw x;
+        }
+    }
+
+    /**
+     * Reads the block index of a compressed file.
+     *
+     * @return null if there is none, or it does not match the file
+     */
+    @CheckForNull
+    private static long[] blocks(@NonNull File gz) throws IOException {
+        File blocks = blocksOf(gz);
+        long[] entries;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(blocks.toPath())))) {
+            entries = new long[(int) (blocks.length() / Long.BYTES) & ~1];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = in.readLong();
+            }
+        } catch (NoSuchFileException x) {
+            return null;
+        }
+        if (entries.length < 4 || entries[entries.length - 1] != gz.length()) {
+            return null;
+        }
+        return entries;
+    }
+
+    /**
+     * Gets the length of the uncompressed data.
+     *
+     * @return -1 if there is no usable block index
+     */
+    public static long length(@NonNull File gz) throws IOException {
+        long[] entries = blocks(gz);
+        return entries != null ? entries[entries.length - 2] : -1;
+    }
+
+    /**
+     * Reads the uncompressed data from some offset on.
+     * Without a usable block index, that means decompressing the data up to that offset.
+     */
+    @NonNull
+    public static InputStream open(@NonNull File gz, long offset) throws IOException {
+        long[] entries = blocks(gz);
+        long start = 0;
+        long position = 0;
+        if (entries != null) {
+            // binary search the uncompressed offsets of members, in the even slots before the totals
+            int lo = 0;
+            int hi = entries.length / 2 - 2;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (entries[2 * mid] <= offset) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            start = entries[2 * lo];
+            position = entries[2 * lo + 1];
+        }
+        FileChannel ch = FileChannel.open(gz.toPath(), StandardOpenOption.READ);
+        try {
+            ch.position(position);
+            InputStream in = new GZIPInputStream(new BufferedInputStream(Channels.newInputStream(ch)), 65536);
+            in.skipNBytes(Math.max(0, offset - start));
+            return in;
+        } catch (IOException | RuntimeException x) {
+            ch.close();
+            throw x;
+        }
+    }
+}
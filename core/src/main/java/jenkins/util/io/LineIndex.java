@@ -0,0 +1,145 @@
+package jenkins.util.io;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Records where every {@link #LINES}th line of a log starts, so that a given line can be found without reading the log up to it.
+ *
+ * <p>
+ * The index is a sequence of big-endian longs, entry {@code i} being the offset of line {@code (i + 1) * LINES},
+ * counting lines from 0 and offsets in the uncompressed log.
+ * It is appended to as the log is written, so it can be read while the log is still growing.
+ */
+@Restricted(NoExternalUse.class)
+public final class LineIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(LineIndex.class.getName());
+
+    /**
+     * How many lines apart indexed lines are.
+     * Changing it makes existing indices unusable, so it is not configurable.
+     */
+    public static final int LINES = 1000;
+
+    /**
+     * Escape hatch to stop writing indices.
+     */
+    private static final boolean DISABLED = SystemProperties.getBoolean(LineIndex.class.getName() + ".disabled");
+
+    private LineIndex() {}
+
+    /**
+     * The index of a log.
+     */
+    @NonNull
+    public static File of(@NonNull File log) {
+        String name = log.getName();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        return new File(log.getParentFile(), name + ".lines");
+    }
+
+    /**
+     * Indexes what is written to a log.
+     * The index is only written if the log starts out empty, as it would otherwise not know which line it is at.
+     *
+     * @param out a stream appending to {@code log}
+     */
+    @NonNull
+    public static OutputStream record(@NonNull File log, @NonNull OutputStream out) throws IOException {
+        File index = of(log);
+        if (DISABLED || log.length() > 0) {
+            Files.deleteIfExists(index.toPath());
+            return out;
+        }
+        FileChannel ch = FileChannel.open(index.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new FilterOutputStream(out) {
+            private final ByteBuffer entry = ByteBuffer.allocate(Long.BYTES);
+            private long offset;
+            private long lines;
+            private boolean failed;
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                scan(b);
+            }
+
+            @Override
+            public void write(@NonNull byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                for (int i = off; i < off + len; i++) {
+                    scan(b[i]);
+                }
+            }
+
+            private void scan(int b) {
+                offset++;
+                if (b == '\n' && ++lines % LINES == 0 && !failed) {
+                    entry.clear();
+                    entry.putLong(offset).flip();
+                    try {
+                        while (entry.hasRemaining()) {
+                            ch.write(entry);
+                        }
+                    } catch (IOException x) {
+                        // the log matters more than its index
+                        LOGGER.log(Level.WARNING, "Failed to index " + log, x);
+                        failed = true;
+                    }
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    ch.close();
+                    if (failed) {
+                        Files.deleteIfExists(index.toPath());
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads the index of a log.
+     *
+     * @return the offsets of lines {@link #LINES}, {@code 2 * LINES} and so on, or an empty array if there is no index
+     */
+    @NonNull
+    public static long[] read(@NonNull File log) throws IOException {
+        File index = of(log);
+        try (InputStream is = Files.newInputStream(index.toPath())) {
+            // while the log is being written, only entries written so far are read
+            long[] offsets = new long[(int) (index.length() / Long.BYTES)];
+            DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = in.readLong();
+            }
+            return offsets;
+        } catch (NoSuchFileException x) {
+            return new long[0];
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package jenkins.util.io;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.BulkChange;
+import hudson.XmlFile;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.security.ImpersonatingScheduledExecutorService;
+import jenkins.util.SystemProperties;
+import jenkins.util.ThrowingRunnable;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Defers writes of {@link XmlFile}s to a dedicated pool, so that repeated saves of the same object within a short window result in a single write.
+ *
+ * <p>
+ * Deferred writes of a given file happen in the order they were requested, each serializing the object as it is at that time,
+ * while holding its monitor as {@code synchronized save()} methods do.
+ * Reading or deleting the file through {@link XmlFile} first completes any pending write of it.
+ * Callers needing the data on disk before they proceed use {@link #flush(XmlFile)}, {@link #flushAll} or {@link #synchronously}.
+ * Files are written where they were when saved, so directories holding them are flushed with {@link #flushDirectory} before being moved,
+ * and discarded with {@link #discardDirectory} before being deleted.
+ * {@code onWritten} runs as whoever requested the write.
+ */
+@Restricted(NoExternalUse.class)
+public final class WriteBehind {
+
+    private static final Logger LOGGER = Logger.getLogger(WriteBehind.class.getName());
+
+    /**
+     * Whether saves of builds and users may be deferred.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ boolean ENABLED = SystemProperties.getBoolean(WriteBehind.class.getName() + ".enabled");
+
+    /**
+     * How long to wait for further saves of the same file before writing it, in milliseconds.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ long DELAY = SystemProperties.getLong(WriteBehind.class.getName() + ".delay", 1000L);
+
+    private static final int THREADS = SystemProperties.getInteger(WriteBehind.class.getName() + ".threads", 2);
+
+    private static final Map<File, Write> pending = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Integer> synchronous = new ThreadLocal<>();
+
+    private static ScheduledExecutorService executor;
+
+    private WriteBehind() {}
+
+    private static synchronized ScheduledExecutorService executor() {
+        if (executor == null) {
+            ScheduledThreadPoolExecutor base = new ScheduledThreadPoolExecutor(THREADS, new NamingThreadFactory(new DaemonThreadFactory(), "WriteBehind"));
+            base.setRemoveOnCancelPolicy(true);
+            // what gets written does not depend on who saved it
+            executor = new ImpersonatingScheduledExecutorService(base, ACL.SYSTEM2);
+        }
+        return executor;
+    }
+
+    /**
+     * Writes an object to a file, later if {@link #ENABLED}.
+     * Writes requested before this one has happened are coalesced with it.
+     *
+     * @param onWritten called once the object has been written, as the current user, typically to notify listeners
+     * @throws IOException if the object was written right away and that failed
+     */
+    public static void write(@NonNull XmlFile file, @NonNull Object o, @NonNull Runnable onWritten) throws IOException {
+        if (!ENABLED || synchronous.get() != null) {
+            flush(file);
+            file.write(o);
+            onWritten.run();
+            return;
+        }
+        Authentication auth = Jenkins.getAuthentication2();
+        Write w = pending.compute(key(file), (k, p) -> {
+            if (p != null && !p.started) {
+                p.o = o;
+                p.onWritten = onWritten;
+                p.auth = auth;
+                return p;
+            }
+            // keep writes of the file in order
+            return new Write(file, o, onWritten, auth, p);
+        });
+        if (w.future == null) {
+            w.future = executor().schedule(w::run, DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Waits for the pending write of a file, if any, doing it right away if it has not started yet.
+     *
+     * @throws IOException if that write failed
+     */
+    public static void flush(@NonNull XmlFile file) throws IOException {
+        Write w = pending.get(key(file));
+        if (w != null) {
+            w.run();
+            w.complete();
+        }
+    }
+
+    /**
+     * Completes all pending writes.
+     */
+    public static void flushAll() throws IOException {
+        flush(new ArrayList<>(pending.values()));
+    }
+
+    /**
+     * Completes pending writes of files inside a directory, such as before it gets moved.
+     */
+    public static void flushDirectory(@NonNull File dir) throws IOException {
+        flush(within(dir));
+    }
+
+    private static void flush(List<Write> writes) throws IOException {
+        List<IOException> errors = new ArrayList<>();
+        for (Write w : writes) {
+            try {
+                w.run();
+                w.complete();
+            } catch (IOException x) {
+                errors.add(x);
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new CompositeIOException("Failed to write some files", errors);
+        }
+    }
+
+    /**
+     * Drops the pending write of a file, if any, such as when it is about to be deleted.
+     * A write that has already started is waited for.
+     */
+    public static void discard(@NonNull XmlFile file) {
+        Write w = pending.get(key(file));
+        if (w != null) {
+            w.discard();
+        }
+    }
+
+    /**
+     * Drops pending writes of files inside a directory, such as when it is about to be deleted.
+     */
+    public static void discardDirectory(@NonNull File dir) {
+        for (Write w : within(dir)) {
+            w.discard();
+        }
+    }
+
+    /**
+     * Runs code writing files right away, such as {@link BulkChange#commit}.
+     */
+    public static <T extends Throwable> void synchronously(@NonNull ThrowingRunnable<T> r) throws T {
+        Integer depth = synchronous.get();
+        synchronous.set(depth == null ? 1 : depth + 1);
+        try {
+            r.run();
+        } finally {
+            if (depth == null) {
+                synchronous.remove();
+            } else {
+                synchronous.set(depth);
+            }
+        }
+    }
+
+    private static File key(XmlFile file) {
+        return file.getFile().getAbsoluteFile();
+    }
+
+    private static List<Write> within(File dir) {
+        Path root = dir.getAbsoluteFile().toPath();
+        List<Write> writes = new ArrayList<>();
+        pending.forEach((k, w) -> {
+            if (k.toPath().startsWith(root)) {
+                writes.add(w);
+            }
+        });
+        return writes;
+    }
+
+    private static final class Write {
+        private final XmlFile file;
+        /** The write of the same file requested before this one, if it was already under way. */
+        private volatile @CheckForNull Write previous;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        // the following are guarded by the entry of the file in pending
+        private volatile Object o;
+        private volatile Runnable onWritten;
+        private volatile Authentication auth;
+        private boolean started;
+        private volatile Future<?> future;
+
+        Write(XmlFile file, Object o, Runnable onWritten, Authentication auth, Write previous) {
+            this.file = file;
+            this.o = o;
+            this.onWritten = onWritten;
+            this.auth = auth;
+            this.previous = previous;
+        }
+
+        /**
+         * Marks this write as started, returning whether it was not already.
+         */
+        private boolean start() {
+            boolean[] starting = new boolean[1];
+            pending.computeIfPresent(key(file), (k, p) -> {
+                if (p == this && !started) {
+                    started = true;
+                    starting[0] = true;
+                }
+                return p;
+            });
+            return starting[0];
+        }
+
+        void run() {
+            if (!start()) {
+                return;
+            }
+            if (future != null) {
+                future.cancel(false);
+            }
+            try {
+                Write p = previous;
+                if (p != null) {
+                    p.done.handle((v, x) -> null).join();
+                }
+                Object toWrite = o;
+                synchronized (toWrite) {
+                    write(toWrite);
+                }
+            } catch (IOException | RuntimeException x) {
+                LOGGER.log(Level.WARNING, "Failed to write " + file, x);
+            } finally {
+                pending.remove(key(file), this);
+                // let a later write of the file, if any, start from a clean slate
+                o = null;
+                onWritten = null;
+            }
+        }
+
+        /**
+         * Writes the object, unless that has already been done, while holding its monitor.
+         */
+        private void write(Object toWrite) throws IOException {
+            if (done.isDone()) {
+                return;
+            }
+            try {
+                file.write(toWrite);
+                try (ACLContext ctx = ACL.as2(auth)) {
+                    onWritten.run();
+                }
+                done.complete(null);
+            } catch (IOException | RuntimeException x) {
+                done.completeExceptionally(x);
+                throw x;
+            } finally {
+                previous = null;
+            }
+        }
+
+        void discard() {
+            if (start()) {
+                if (future != null) {
+                    future.cancel(false);
+                }
+                pending.remove(key(file), this);
+                done.complete(null);
+            }
+            Object lock = o;
+            if (lock != null && Thread.holdsLock(lock)) {
+                // a write under way is waiting for the monitor, and will then find itself done
+                done.complete(null);
+                return;
+            }
+            try {
+                await();
+            } catch (IOException x) {
+                LOGGER.log(Level.FINE, "Discarded write of " + file + " failed anyway", x);
+            }
+        }
+
+        /**
+         * Waits for this write to complete.
+         * If the current thread holds the monitor of the object being written, the thread doing the write could not get it,
+         * so the write is done here instead.
+         */
+        void complete() throws IOException {
+            Object lock = o;
+            if (lock != null && Thread.holdsLock(lock) && !done.isDone()) {
+                Write p = previous;
+                if (p != null) {
+                    try {
+                        p.complete();
+                    } catch (IOException x) {
+                        // as in run, a failed earlier write does not prevent this one
+                    }
+                }
+                write(lock);
+                return;
+            }
+            await();
+        }
+
+        void await() throws IOException {
+            try {
+                done.get();
+            } catch (InterruptedException x) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for " + file + " to be written", x);
+            } catch (ExecutionException x) {
+                Throwable cause = x.getCause();
+                throw cause instanceof IOException io ? new IOException(io.getMessage(), io) : new IOException(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package jenkins.util.xstream;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.binary.BinaryStreamReader;
+import com.thoughtworks.xstream.io.binary.BinaryStreamWriter;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.XmlFile;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import jenkins.util.SystemProperties;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Keeps a binary copy of the data in an {@link XmlFile} next to it, so that unchanged records can be read back without parsing XML.
+ *
+ * <p>
+ * The copy is written in the {@link BinaryStreamWriter} format whenever the XML file is written,
+ * and records the size, modification time and checksum of the XML file it was written with.
+ * It is only used when all three still match, so the XML file stays the source of truth:
+ * edits to it, restored backups and files written without the cache all cause it to be parsed as before.
+ */
+@Restricted(NoExternalUse.class)
+public final class BinaryCache {
+
+    private static final Logger LOGGER = Logger.getLogger(BinaryCache.class.getName());
+
+    /**
+     * Whether {@link XmlFile} writes and reads binary copies.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* Script Console modifiable */ boolean ENABLED = SystemProperties.getBoolean(BinaryCache.class.getName() + ".enabled");
+
+    private static final int MAGIC = 0x4a584231; // JXB1
+
+    private BinaryCache() {}
+
+    /**
+     * The file holding the binary copy of an XML file.
+     */
+    @NonNull
+    public static File sidecar(@NonNull File xml) {
+        return new File(xml.getParentFile(), "." + xml.getName() + ".bin");
+    }
+
+    /**
+     * Serializes an object in binary form.
+     *
+     * @return null if it could not be, in which case no binary copy should be kept
+     */
+    @CheckForNull
+    public static byte[] marshal(@NonNull XStream xs, @NonNull Object o) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        BinaryStreamWriter w = new BinaryStreamWriter(buf);
+        try {
+            xs.marshal(o, w);
+            w.flush();
+            return buf.toByteArray();
+        } catch (RuntimeException x) {
+            LOGGER.log(Level.FINE, "Could not serialize " + o + " in binary form", x);
+            return null;
+        }
+    }
+
+    /**
+     * Computes the checksum of the content of a file.
+     */
+    public static long checksum(@NonNull Path file) throws IOException {
+        try (CheckedInputStream in = new CheckedInputStream(Files.newInputStream(file), new CRC32C())) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return in.getChecksum().getValue();
+        }
+    }
+
+    /**
+     * Stores the binary copy of an XML file which has just been written.
+     *
+     * @param checksum the {@link #checksum} of what was written to the XML file
+     * @param data from {@link #marshal}
+     */
+    public static void store(@NonNull File xml, long checksum, @NonNull byte[] data) {
+        File sidecar = sidecar(xml);
+        Path tmp = null;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(xml.toPath(), BasicFileAttributes.class);
+            tmp = Files.createTempFile(sidecar.getParentFile().toPath(), sidecar.getName(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+                out.writeInt(MAGIC);
+                out.writeLong(attrs.size());
+                out.writeLong(attrs.lastModifiedTime().toMillis());
+                out.writeLong(checksum);
+                out.write(data);
+            }
+            try {
+                Files.move(tmp, sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException x) {
+                Files.move(tmp, sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException x) {
+            LOGGER.log(Level.FINE, "Could not store binary copy of " + xml, x);
+            delete(xml);
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException x) {
+                    LOGGER.log(Level.FINE, "Could not delete " + tmp, x);
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the binary copy of an XML file, if it matches the current content of that file.
+     * The caller must close the reader.
+     *
+     * @return null if there is no usable copy, in which case the XML file must be parsed
+     */
+    @CheckForNull
+    public static HierarchicalStreamReader open(@NonNull File xml) {
+        File sidecar = sidecar(xml);
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(Files.newInputStream(sidecar.toPath()));
+            DataInputStream header = new DataInputStream(in);
+            BasicFileAttributes attrs = Files.readAttributes(xml.toPath(), BasicFileAttributes.class);
+            if (header.readInt() == MAGIC
+                    && header.readLong() == attrs.size()
+                    && header.readLong() == attrs.lastModifiedTime().toMillis()
+                    && header.readLong() == checksum(xml.toPath())) {
+                HierarchicalStreamReader r = new BinaryStreamReader(in);
+                in = null;
+                return r;
+            }
+            LOGGER.finer(() -> "Ignoring stale " + sidecar);
+        } catch (NoSuchFileException | EOFException x) {
+            // no copy, or a truncated one
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(Level.FINE, "Could not open " + sidecar, x);
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException x) {
+                    LOGGER.log(Level.FINE, "Could not close " + sidecar, x);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Deletes the binary copy of an XML file, if any.
+     */
+    public static void delete(@NonNull File xml) {
+        try {
+            Files.deleteIfExists(sidecar(xml).toPath());
+        } catch (IOException x) {
+            LOGGER.log(Level.FINE, "Could not delete binary copy of " + xml, x);
+        }
+    }
+}
@@ -54,7 +54,12 @@ public abstract class RunListProgressiveRendering extends ProgressiveRendering {
     private Iterable<? extends Run<?, ?>> builds;
 
     /** Jelly cannot call a constructor with arguments. */
+    @SuppressWarnings("unchecked")
     public void setBuilds(Iterable<? extends Run<?, ?>> builds) {
+        if (builds instanceof RunList<?> runList) {
+            // leaves the list of the caller as it was
+            builds = (RunList<? extends Run<?, ?>>) runList.prefetching();
+        }
         this.builds = builds;
     }
 
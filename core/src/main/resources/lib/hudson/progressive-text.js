@@ -9,10 +9,67 @@ Behaviour.specify(
     let startOffset = holder.getAttribute("data-start-offset");
     let onFinishEvent = holder.getAttribute("data-on-finish-event");
     let errorMessage = holder.getAttribute("data-error-message");
+    let streamHref = holder.getAttribute("data-stream-href");
 
     var scroller = new AutoScroller(
       holder.closest(".progressive-text-container") || document.body,
     );
+    /* append text and do autoscroll if applicable */
+    function appendText(e, text, stickToBottom) {
+      if (text !== "") {
+        var p = document.createElement("DIV");
+        e.appendChild(p); // Needs to be first for IE
+        p.innerHTML = text;
+        Behaviour.applySubtree(p);
+        if (stickToBottom) {
+          scroller.scrollToBottom();
+        }
+      }
+    }
+
+    function finish(onFinishEvent) {
+      if (spinner !== "") {
+        document.getElementById(spinner).style.display = "none";
+      }
+      if (onFinishEvent) {
+        window.dispatchEvent(new Event(onFinishEvent));
+      }
+    }
+
+    /*
+  receives updates pushed by the server, falling back to polling if that fails
+  */
+    function stream(e, streamHref, href, onFinishEvent) {
+      var url = new URL(streamHref, window.location.href);
+      url.protocol = url.protocol === "https:" ? "wss:" : "ws:";
+      url.searchParams.set("start", e.fetchedBytes);
+      var completed = false;
+      var socket;
+      try {
+        socket = new WebSocket(url);
+      } catch (x) {
+        fetchNext(e, href, onFinishEvent);
+        return;
+      }
+      socket.onmessage = (event) => {
+        var stickToBottom = scroller.isSticking();
+        var message = JSON.parse(event.data);
+        e.fetchedBytes = message.end;
+        appendText(e, message.text, stickToBottom);
+        if (message.completed) {
+          completed = true;
+          finish(onFinishEvent);
+        }
+      };
+      socket.onclose = () => {
+        if (!completed) {
+          // annotations resume from scratch
+          e.consoleAnnotator = undefined;
+          fetchNext(e, href, onFinishEvent);
+        }
+      };
+    }
+
     /*
   fetches the latest update from the server
   @param e
@@ -79,36 +136,26 @@ Behaviour.specify(
             };
           });
         }
-        /* append text and do autoscroll if applicable */
         parse.then(({ text, end, consoleAnnotator, completed }) => {
           e.fetchedBytes = end;
           e.consoleAnnotator = consoleAnnotator;
-          if (text !== "") {
-            var p = document.createElement("DIV");
-            e.appendChild(p); // Needs to be first for IE
-            p.innerHTML = text;
-            Behaviour.applySubtree(p);
-            if (stickToBottom) {
-              scroller.scrollToBottom();
-            }
-          }
+          appendText(e, text, stickToBottom);
           if (!completed) {
             setTimeout(function () {
               fetchNext(e, href, onFinishEvent);
             }, 1000);
           } else {
-            if (spinner !== "") {
-              document.getElementById(spinner).style.display = "none";
-            }
-            if (onFinishEvent) {
-              window.dispatchEvent(new Event(onFinishEvent));
-            }
+            finish(onFinishEvent);
           }
         });
       });
     }
     document.getElementById(idref).fetchedBytes =
       startOffset !== "" ? Number(startOffset) : 0;
-    fetchNext(document.getElementById(idref), href, onFinishEvent);
+    if (streamHref !== "" && window.WebSocket) {
+      stream(document.getElementById(idref), streamHref, href, onFinishEvent);
+    } else {
+      fetchNext(document.getElementById(idref), href, onFinishEvent);
+    }
   },
 );
@@ -3,9 +3,12 @@ package hudson;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.thoughtworks.xstream.converters.ConversionException;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.StreamException;
 import hudson.model.Node;
 import hudson.util.RobustReflectionConverter;
@@ -14,9 +17,14 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 import jenkins.model.Jenkins;
+import jenkins.util.xstream.BinaryCache;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class XmlFileTest {
 
@@ -86,4 +94,56 @@ class XmlFileTest {
         assertThat(n.getMode().toString(), is("NORMAL"));
         assertThat(n.getLabelString(), is("LESS_TERMCAP_mb=\u001B[01;31m"));
     }
+
+    @Test
+    void binaryCache(@TempDir File dir) throws IOException {
+        XStream2 xs = new XStream2();
+        XmlFile xmlFile = new XmlFile(xs, new File(dir, "data.xml"));
+        boolean enabled = BinaryCache.ENABLED;
+        BinaryCache.ENABLED = true;
+        try {
+            xmlFile.write(new Record("original", 1));
+            HierarchicalStreamReader cached = BinaryCache.open(xmlFile.getFile());
+            assertThat(cached, notNullValue());
+            cached.close();
+            assertThat(((Record) xmlFile.read()).name, is("original"));
+            Record existing = new Record(null, 0);
+            xmlFile.unmarshal(existing);
+            assertThat(existing.count, is(1));
+
+            // the XML stays the source of truth when edited behind our back
+            String edited = xmlFile.asString().replace("original", "modified");
+            FileTime mtime = Files.getLastModifiedTime(xmlFile.getFile().toPath());
+            Files.writeString(xmlFile.getFile().toPath(), edited);
+            Files.setLastModifiedTime(xmlFile.getFile().toPath(), mtime);
+            assertThat(BinaryCache.open(xmlFile.getFile()), nullValue());
+            assertThat(((Record) xmlFile.read()).name, is("modified"));
+
+            xmlFile.delete();
+            assertThat(BinaryCache.sidecar(xmlFile.getFile()).exists(), is(false));
+        } finally {
+            BinaryCache.ENABLED = enabled;
+        }
+    }
+
+    @Test
+    void unmarshalReportsLength(@TempDir File dir) throws IOException {
+        XmlFile xmlFile = new XmlFile(new XStream2(), new File(dir, "data.xml"));
+        xmlFile.write(new Record("original", 1));
+        AtomicLong length = new AtomicLong(-1);
+        Record existing = new Record(null, 0);
+        xmlFile.unmarshal(existing, length::set);
+        assertThat(existing.name, is("original"));
+        assertThat(length.get(), is(xmlFile.getFile().length()));
+    }
+
+    public static final class Record {
+        String name;
+        int count;
+
+        Record(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+    }
 }
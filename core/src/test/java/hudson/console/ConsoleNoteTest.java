@@ -0,0 +1,55 @@
+package hudson.console;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ConsoleNoteTest {
+
+    @Test
+    void findPreamble() {
+        String alphabet = "ab\n" + ConsoleNote.PREAMBLE_STR;
+        Random r = new Random(42);
+        for (int n = 0; n < 1000; n++) {
+            byte[] buf = new byte[r.nextInt(64)];
+            for (int i = 0; i < buf.length; i++) {
+                buf[i] = (byte) alphabet.charAt(r.nextInt(alphabet.length()));
+            }
+            if (buf.length >= ConsoleNote.PREAMBLE.length && r.nextBoolean()) {
+                int at = r.nextInt(buf.length - ConsoleNote.PREAMBLE.length + 1);
+                System.arraycopy(ConsoleNote.PREAMBLE, 0, buf, at, ConsoleNote.PREAMBLE.length);
+            }
+            int start = buf.length == 0 ? 0 : r.nextInt(buf.length);
+            int len = buf.length - start == 0 ? 0 : r.nextInt(buf.length - start + 1);
+            assertEquals(naiveFindPreamble(buf, start, len), ConsoleNote.findPreamble(buf, start, len));
+        }
+    }
+
+    @Test
+    void readFromReturnsFreshNotes() throws Exception {
+        byte[] encoded = new HyperlinkNote("/job/p/", 4).encode().getBytes(StandardCharsets.UTF_8);
+        ConsoleNote first = ConsoleNote.readFrom(new DataInputStream(new ByteArrayInputStream(encoded)));
+        ConsoleNote second = ConsoleNote.readFrom(new DataInputStream(new ByteArrayInputStream(encoded)));
+        assertInstanceOf(HyperlinkNote.class, first);
+        assertInstanceOf(HyperlinkNote.class, second);
+        assertNotSame(first, second);
+    }
+
+    private static int naiveFindPreamble(byte[] buf, int start, int len) {
+        OUTER:
+        for (int i = start; i <= start + len - ConsoleNote.PREAMBLE.length; i++) {
+            for (int j = 0; j < ConsoleNote.PREAMBLE.length; j++) {
+                if (buf[i + j] != ConsoleNote.PREAMBLE[j])
+                    continue OUTER;
+            }
+            return i;
+        }
+        return -1;
+    }
+}
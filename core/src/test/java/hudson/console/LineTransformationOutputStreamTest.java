@@ -30,6 +30,7 @@ import static org.hamcrest.Matchers.is;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.Test;
 
@@ -67,4 +68,29 @@ final class LineTransformationOutputStreamTest {
         assertThat(count.get(), is((max * (max - 1)) / 2));
     }
 
+    @Test
+    void longLinesAndSplitWrites() throws Exception {
+        var lines = new ArrayList<String>();
+        var input = new StringBuilder();
+        for (int len : new int[] {10, 5000, 70_000, 100, 65_536, 3}) {
+            input.append("x".repeat(len)).append(len % 2 == 0 ? "\r\n" : "\r");
+        }
+        input.append("tail");
+        byte[] bytes = input.toString().getBytes(StandardCharsets.UTF_8);
+        try (var collector = new LineTransformationOutputStream() {
+            @Override protected void eol(byte[] b, int len) {
+                lines.add(new String(b, 0, len, StandardCharsets.UTF_8));
+            }
+        }) {
+            // chunks ending anywhere, including between CR and LF
+            for (int i = 0; i < bytes.length; i += 4099) {
+                collector.write(bytes, i, Math.min(4099, bytes.length - i));
+            }
+        }
+        assertThat(String.join("", lines), is(input.toString()));
+        assertThat(lines.size(), is(7));
+        assertThat(lines.get(2), is("x".repeat(70_000) + "\r\n"));
+        assertThat(lines.get(5), is("xxx\r"));
+    }
+
 }
@@ -38,6 +38,7 @@ import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
@@ -47,6 +48,8 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import jenkins.model.Jenkins;
+import jenkins.util.io.BlockGzip;
+import jenkins.util.io.LineIndex;
 import org.apache.commons.jelly.XMLOutput;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -219,6 +222,34 @@ class RunTest {
         assertEquals("c3", logLines.get(3));
     }
 
+    @Test
+    void getLogLinesFromCompressedLog() throws Exception {
+        Job j = Mockito.mock(Job.class);
+        File tempBuildDir = newFolder(tmp, "junit");
+        Mockito.when(j.getBuildDir()).thenReturn(tempBuildDir);
+        Run<? extends Job<?, ?>, ? extends Run<?, ?>> r = new Run(j, 0) {};
+        File log = new File(r.getRootDir(), "log");
+        log.getParentFile().mkdirs();
+        try (PrintStream w = new PrintStream(LineIndex.record(log, Files.newOutputStream(log.toPath())), false, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 2500; i++) {
+                w.print("line" + i + "\n");
+            }
+        }
+        assertEquals(List.of("line1499", "line1500", "line1501"), r.getLogLines(1499, 3));
+
+        try (InputStream in = Files.newInputStream(log.toPath())) {
+            BlockGzip.compress(in, new File(log.getParentFile(), "log.gz"));
+        }
+        Files.delete(log.toPath());
+        assertEquals(List.of("line1499", "line1500", "line1501"), r.getLogLines(1499, 3));
+        assertEquals(List.of("line2499"), r.getLogLines(2499, 3));
+        assertTrue(r.getLogLines(2500, 3).isEmpty());
+        List<String> lastLines = r.getLog(3);
+        assertEquals(3, lastLines.size());
+        assertTrue(lastLines.getFirst().startsWith("[...truncated "), lastLines.getFirst());
+        assertEquals(List.of("line2498", "line2499"), lastLines.subList(1, 3));
+    }
+
     @Test
     void compareRunsFromSameJobWithDifferentNumbers() throws Exception {
         final Jenkins group = Mockito.mock(Jenkins.class);
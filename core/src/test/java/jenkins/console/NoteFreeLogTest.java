@@ -0,0 +1,52 @@
+package jenkins.console;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import hudson.console.ConsoleNote;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NoteFreeLogTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    void plain() throws Exception {
+        File log = new File(dir, "log");
+        try (OutputStream out = NoteFreeLog.record(log, Files.newOutputStream(log.toPath()))) {
+            out.write("first\nsecond\n".getBytes(StandardCharsets.UTF_8));
+        }
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        assertEquals(13, NoteFreeLog.transferTo(log, 6, buf));
+        assertEquals("second\n", buf.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void annotated() throws Exception {
+        File log = new File(dir, "log");
+        try (OutputStream out = NoteFreeLog.record(log, Files.newOutputStream(log.toPath()))) {
+            out.write("first\n".getBytes(StandardCharsets.UTF_8));
+            out.write((ConsoleNote.PREAMBLE_STR + "AAAA" + ConsoleNote.POSTAMBLE_STR + "second\n").getBytes(StandardCharsets.UTF_8));
+        }
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        assertEquals(-1, NoteFreeLog.transferTo(log, 0, buf));
+        assertEquals(0, buf.size());
+    }
+
+    @Test
+    void appended() throws Exception {
+        File log = new File(dir, "log");
+        Files.writeString(log.toPath(), "earlier\n");
+        try (OutputStream out = NoteFreeLog.record(log, Files.newOutputStream(log.toPath(), StandardOpenOption.APPEND))) {
+            out.write("later\n".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(-1, NoteFreeLog.transferTo(log, 0, new ByteArrayOutputStream()));
+    }
+}
@@ -0,0 +1,87 @@
+package jenkins.model.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BuildCacheTest {
+
+    private int maxEntries;
+    private long maxBytes;
+
+    @BeforeEach
+    void setUp() {
+        maxEntries = BuildCache.MAX_ENTRIES;
+        maxBytes = BuildCache.MAX_BYTES;
+    }
+
+    @AfterEach
+    void tearDown() {
+        BuildCache.MAX_ENTRIES = maxEntries;
+        BuildCache.MAX_BYTES = maxBytes;
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        BuildCache.MAX_ENTRIES = 3;
+        BuildCache.MAX_BYTES = 0;
+        BuildCache cache = new BuildCache(o -> 1);
+        List<BuildReference.Holder<Object>> holders = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            holders.add(cache.hold(new Object()));
+        }
+        // touch the oldest, so the second one gets evicted instead
+        holders.get(0).get();
+        Object fourth = new Object();
+        holders.add(cache.hold(fourth));
+        assertEquals(3, cache.getSize());
+        assertEquals(1, cache.getEvictions());
+        assertSame(fourth, holders.get(3).get());
+    }
+
+    @Test
+    void evictedButReachable() {
+        BuildCache.MAX_ENTRIES = 1;
+        BuildCache.MAX_BYTES = 0;
+        BuildCache cache = new BuildCache(o -> 1);
+        Object running = new Object();
+        BuildReference.Holder<Object> h = cache.hold(running);
+        cache.hold(new Object());
+        assertEquals(1, cache.getEvictions());
+        // still strongly reachable here, so the same object is returned rather than being loaded again
+        assertSame(running, h.get());
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    void boundedByWeight() {
+        BuildCache.MAX_ENTRIES = 0;
+        BuildCache.MAX_BYTES = 100;
+        BuildCache cache = new BuildCache(o -> 40);
+        for (int i = 0; i < 5; i++) {
+            cache.hold(new Object());
+        }
+        assertEquals(2, cache.getSize());
+        assertEquals(80, cache.getWeight());
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getWeight());
+    }
+
+    @Test
+    void metrics() {
+        BuildCache cache = new BuildCache(o -> 0);
+        cache.requested(true);
+        cache.requested(false);
+        cache.loaded(System.nanoTime());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getLoads());
+        assertEquals(1L, cache.toJSON().getLong("loads"));
+    }
+}
@@ -0,0 +1,65 @@
+package jenkins.model.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.Result;
+import java.io.File;
+import java.io.RandomAccessFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BuildIndexTest {
+
+    @TempDir
+    File dir;
+
+    private static BuildSummary summary(int number, Result result, String description) {
+        return new BuildSummary(number, 1000L * number, 10L * number, result, 100 + number, null, description, false);
+    }
+
+    @Test
+    void roundTrip() {
+        BuildIndex index = new BuildIndex(dir);
+        index.put(summary(1, Result.SUCCESS, null));
+        index.put(summary(2, Result.FAILURE, "broken ✗"));
+        index.put(summary(3, null, null));
+        index.put(summary(1, Result.UNSTABLE, "changed"));
+        index.remove(3);
+
+        BuildIndex reread = new BuildIndex(dir);
+        assertEquals(summary(1, Result.UNSTABLE, "changed"), reread.get(1));
+        assertEquals(summary(2, Result.FAILURE, "broken ✗"), reread.get(2));
+        assertNull(reread.get(3));
+    }
+
+    @Test
+    void truncatedRecord() throws Exception {
+        BuildIndex index = new BuildIndex(dir);
+        index.put(summary(1, Result.SUCCESS, null));
+        index.put(summary(2, Result.SUCCESS, null));
+        File file = new File(dir, BuildIndex.FILE_NAME);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        BuildIndex reread = new BuildIndex(dir);
+        assertEquals(summary(1, Result.SUCCESS, null), reread.get(1));
+        assertNull(reread.get(2));
+        // the damaged tail is dropped, so later records can be read back
+        reread.put(summary(2, Result.ABORTED, null));
+        assertEquals(summary(2, Result.ABORTED, null), new BuildIndex(dir).get(2));
+    }
+
+    @Test
+    void compaction() {
+        BuildIndex index = new BuildIndex(dir);
+        for (int i = 0; i < 200; i++) {
+            index.put(summary(1, Result.SUCCESS, "description " + i));
+        }
+        File file = new File(dir, BuildIndex.FILE_NAME);
+        assertTrue(file.length() < 100 * 60, "was " + file.length());
+        assertEquals(summary(1, Result.SUCCESS, "description 199"), new BuildIndex(dir).get(1));
+    }
+}
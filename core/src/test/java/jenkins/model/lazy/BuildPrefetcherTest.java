@@ -0,0 +1,25 @@
+package jenkins.model.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BuildPrefetcherTest {
+
+    @Test
+    void readAhead() {
+        List<Integer> prefetched = new ArrayList<>();
+        Iterator<Integer> it = BuildPrefetcher.readAhead(List.of(5, 4, 3, 2, 1).iterator(), 2, prefetched::add);
+        assertEquals(5, it.next());
+        assertEquals(List.of(5, 4, 3), prefetched);
+        assertEquals(4, it.next());
+        assertEquals(List.of(5, 4, 3, 2), prefetched);
+        List<Integer> rest = new ArrayList<>();
+        it.forEachRemaining(rest::add);
+        assertEquals(List.of(3, 2, 1), rest);
+        assertEquals(List.of(5, 4, 3, 2, 1), prefetched);
+    }
+}
@@ -0,0 +1,68 @@
+package jenkins.model.queue;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import hudson.model.Label;
+import hudson.model.Node;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class LabelIndexTest {
+
+    private final Node a = mock(Node.class);
+    private final Node b = mock(Node.class);
+    private final Node c = mock(Node.class);
+    private final Map<String, Node> offers = Map.of("a1", a, "a2", a, "b1", b, "c1", c);
+
+    @Test
+    void nullLabelMatchesEverything() {
+        LabelIndex<String> index = new LabelIndex<>(offers.keySet(), offers::get);
+        assertThat(index.get(null), containsInAnyOrder("a1", "a2", "b1", "c1"));
+    }
+
+    @Test
+    void smallLabel() {
+        Label label = label(Set.of(a));
+        LabelIndex<String> index = new LabelIndex<>(offers.keySet(), offers::get);
+        assertThat(index.get(label), containsInAnyOrder("a1", "a2"));
+    }
+
+    @Test
+    void largeLabel() {
+        Node offline = mock(Node.class);
+        Label label = label(Set.of(a, c, offline, mock(Node.class)));
+        LabelIndex<String> index = new LabelIndex<>(offers.keySet(), offers::get);
+        assertThat(index.get(label), containsInAnyOrder("a1", "a2", "c1"));
+    }
+
+    @Test
+    void noMatch() {
+        Label label = label(Set.of());
+        LabelIndex<String> index = new LabelIndex<>(offers.keySet(), offers::get);
+        assertThat(index.get(label), empty());
+    }
+
+    @Test
+    void memoized() {
+        Label label = label(Set.of(b));
+        LabelIndex<String> index = new LabelIndex<>(offers.keySet(), offers::get);
+        List<String> first = index.get(label);
+        assertSame(first, index.get(label));
+        verify(label, times(1)).getNodes();
+    }
+
+    private static Label label(Set<Node> nodes) {
+        Label label = mock(Label.class);
+        when(label.getNodes()).thenReturn(nodes);
+        return label;
+    }
+}
@@ -0,0 +1,85 @@
+package jenkins.util.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.XmlFile;
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WriteBehindTest {
+
+    @TempDir
+    File dir;
+
+    private boolean enabled;
+    private long delay;
+
+    @BeforeEach
+    void enable() {
+        enabled = WriteBehind.ENABLED;
+        delay = WriteBehind.DELAY;
+        WriteBehind.ENABLED = true;
+        WriteBehind.DELAY = 60_000;
+    }
+
+    @AfterEach
+    void restore() {
+        WriteBehind.ENABLED = enabled;
+        WriteBehind.DELAY = delay;
+    }
+
+    @Test
+    void coalesce() throws Exception {
+        XmlFile file = new XmlFile(new File(dir, "data.xml"));
+        AtomicInteger written = new AtomicInteger();
+        for (int i = 1; i <= 3; i++) {
+            WriteBehind.write(file, new Data(i), written::incrementAndGet);
+        }
+        assertFalse(file.exists());
+        assertEquals(3, ((Data) file.read()).value);
+        assertEquals(1, written.get());
+
+        WriteBehind.write(file, new Data(4), written::incrementAndGet);
+        WriteBehind.synchronously(() -> WriteBehind.write(file, new Data(5), written::incrementAndGet));
+        assertEquals(5, ((Data) file.read()).value);
+        assertEquals(3, written.get());
+
+        WriteBehind.write(file, new Data(6), written::incrementAndGet);
+        file.delete();
+        WriteBehind.flushAll();
+        assertFalse(file.exists());
+        assertEquals(3, written.get());
+    }
+
+    @Test
+    void flushWhileHoldingMonitor() throws Exception {
+        WriteBehind.DELAY = 0;
+        XmlFile file = new XmlFile(new File(dir, "data.xml"));
+        AtomicInteger written = new AtomicInteger();
+        Data data = new Data(1);
+        synchronized (data) {
+            WriteBehind.write(file, data, written::incrementAndGet);
+            // let the pool start the write and block on the monitor
+            Thread.sleep(100);
+            WriteBehind.flush(file);
+            assertTrue(file.exists());
+            assertEquals(1, written.get());
+        }
+        WriteBehind.flushAll();
+        assertEquals(1, written.get());
+    }
+
+    public static final class Data {
+        int value;
+
+        Data(int value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package hudson.console;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures annotating a large log, with a {@link HyperlinkNote} every few lines, and stripping its notes.
+ */
+public class ConsoleAnnotationBenchmarkTest {
+
+    @Test
+    void runBenchmark() throws Exception {
+        // run the minimum possible number of iterations
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .mode(Mode.AverageTime)
+                .forks(1)
+                .result("jmh-report.json")
+                .resultFormat(ResultFormatType.JSON)
+                .operationsPerInvocation(1)
+                .threads(1)
+                .warmupForks(0)
+                .warmupIterations(0)
+                .measurementBatchSize(1)
+                .measurementIterations(1)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .shouldFailOnError(true)
+                .include(ConsoleAnnotationBenchmarkTest.class.getName() + ".*");
+        new Runner(options.build()).run();
+        assertTrue(Files.exists(Paths.get("jmh-report.json")));
+    }
+
+    @JmhBenchmark
+    public static class AnnotationBenchmark {
+        public static class StateImpl extends JmhBenchmarkState {
+            @Param({"100"})
+            int megabytes;
+
+            @Param({"10"})
+            int linesPerNote;
+
+            File log;
+
+            @Override
+            public void setup() throws Exception {
+                log = new File(getJenkins().getRootDir(), "benchmark.log");
+                byte[] note = (HyperlinkNote.encodeTo("/job/p/1/", "build #1") + " finished\n").getBytes(StandardCharsets.UTF_8);
+                byte[] plain = "[INFO] Compiling 1234 source files to /var/lib/jenkins/workspace/p/target/classes\n".getBytes(StandardCharsets.UTF_8);
+                long size = megabytes * 1024L * 1024L;
+                try (OutputStream out = Files.newOutputStream(log.toPath())) {
+                    for (long written = 0, line = 0; written < size; line++) {
+                        byte[] b = line % linesPerNote == 0 ? note : plain;
+                        out.write(b);
+                        written += b.length;
+                    }
+                }
+            }
+        }
+
+        @Benchmark
+        public void annotate(StateImpl state) throws Exception {
+            try (InputStream in = Files.newInputStream(state.log.toPath());
+                 ConsoleAnnotationOutputStream<Object> out = new ConsoleAnnotationOutputStream<>(Writer.nullWriter(), ConsoleAnnotator.initial(null), null, StandardCharsets.UTF_8)) {
+                in.transferTo(out);
+            }
+        }
+
+        @Benchmark
+        public void stripNotes(StateImpl state) throws Exception {
+            try (InputStream in = Files.newInputStream(state.log.toPath());
+                 PlainTextConsoleOutputStream out = new PlainTextConsoleOutputStream(OutputStream.nullOutputStream())) {
+                in.transferTo(out);
+            }
+        }
+    }
+}
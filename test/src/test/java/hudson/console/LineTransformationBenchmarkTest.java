@@ -0,0 +1,105 @@
+package hudson.console;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.StreamBuildListener;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the cost per line of build output going through a typical chain of {@link ConsoleLogFilter}s
+ * based on {@link LineTransformationOutputStream}.
+ */
+public class LineTransformationBenchmarkTest {
+
+    @Test
+    void runBenchmark() throws Exception {
+        // run the minimum possible number of iterations
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .mode(Mode.AverageTime)
+                .forks(1)
+                .result("jmh-report.json")
+                .resultFormat(ResultFormatType.JSON)
+                .operationsPerInvocation(1)
+                .threads(1)
+                .warmupForks(0)
+                .warmupIterations(0)
+                .measurementBatchSize(1)
+                .measurementIterations(1)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .shouldFailOnError(true)
+                .include(LineTransformationBenchmarkTest.class.getName() + ".*");
+        new Runner(options.build()).run();
+        assertTrue(Files.exists(Paths.get("jmh-report.json")));
+    }
+
+    @JmhBenchmark
+    public static class FilterChainBenchmark {
+        @State(Scope.Thread)
+        public static class StateImpl {
+            @Param({"80", "10000"})
+            int lineLength;
+
+            PrintStream logger;
+            String line;
+
+            @Setup
+            public void setup() {
+                // like a listener decorated by a masking filter and a timestamping filter
+                OutputStream out = new BufferedOutputStream(OutputStream.nullOutputStream());
+                out = new Masking(out);
+                out = new Prefixing(out);
+                logger = new StreamBuildListener(out, StandardCharsets.UTF_8).getLogger();
+                line = "[INFO] compiling secret ".repeat(lineLength / 24 + 1).substring(0, lineLength);
+            }
+        }
+
+        @Benchmark
+        public void println(StateImpl state) {
+            state.logger.println(state.line);
+        }
+    }
+
+    private static final class Prefixing extends LineTransformationOutputStream.Delegating {
+        private final byte[] prefix = "[2026-01-01T00:00:00.000Z] ".getBytes(StandardCharsets.UTF_8);
+
+        Prefixing(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        protected void eol(byte[] b, int len) throws IOException {
+            out.write(prefix);
+            out.write(b, 0, len);
+        }
+    }
+
+    private static final class Masking extends LineTransformationOutputStream.Delegating {
+        Masking(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        protected void eol(byte[] b, int len) throws IOException {
+            out.write(new String(b, 0, len, StandardCharsets.UTF_8).replace("secret", "****").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -35,8 +35,10 @@ import hudson.tasks.BuildTrigger;
 import hudson.tasks.MailMessageIdAction;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import jenkins.model.DependencyDeclarer;
+import jenkins.triggers.ReverseBuildTrigger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.jvnet.hudson.test.Issue;
@@ -189,6 +191,45 @@ class DependencyGraphTest {
 
     }
 
+    @Test
+    void incrementalRebuild() throws Exception {
+        boolean incremental = DependencyGraph.INCREMENTAL;
+        DependencyGraph.INCREMENTAL = true;
+        try {
+            FreeStyleProject a = j.createFreeStyleProject("a");
+            FreeStyleProject b = j.createFreeStyleProject("b");
+            FreeStyleProject c = j.createFreeStyleProject("c");
+            FreeStyleProject d = j.createFreeStyleProject("d");
+            depends(a, b);
+            d.addTrigger(new ReverseBuildTrigger("b"));
+            j.jenkins.rebuildDependencyGraph();
+            DependencyGraph g = j.jenkins.getDependencyGraph();
+            assertEquals(Set.of(b, d), g.getTransitiveDownstream(a));
+            // callers may change what they get back
+            g.getTransitiveDownstream(a).clear();
+            assertEquals(Set.of(b, d), g.getTransitiveDownstream(a));
+
+            depends(b, c);
+            DependencyGraph g2 = j.jenkins.rebuildDependencyGraphAsync(b).get(10, TimeUnit.SECONDS);
+            assertEquals(List.of(c, d), g2.getDownstream(b));
+            assertEquals(Set.of(b, c, d), g2.getTransitiveDownstream(a));
+            assertEquals(Set.of(a, b), g2.getTransitiveUpstream(c));
+            assertTrue(g2.compare(a, b) < 0);
+            assertTrue(g2.compare(b, c) < 0);
+            // the previous graph is unchanged
+            assertEquals(Set.of(b, d), g.getTransitiveDownstream(a));
+            assertEquals(List.of(d), g.getDownstream(b));
+
+            a.getPublishersList().clear();
+            DependencyGraph g3 = g2.rebuild(List.of(a));
+            assertEquals(List.of(), g3.getUpstream(b));
+            assertEquals(List.of(b), g3.getUpstream(d));
+            assertEquals(Set.of(), g3.getTransitiveDownstream(a));
+        } finally {
+            DependencyGraph.INCREMENTAL = incremental;
+        }
+    }
+
     private void depends(FreeStyleProject a, FreeStyleProject... downstreams) {
         a.getPublishersList().add(new BuildTrigger(Arrays.asList(downstreams), Result.SUCCESS));
     }
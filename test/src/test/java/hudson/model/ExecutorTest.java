@@ -106,6 +106,34 @@ public class ExecutorTest {
         j.assertLogContains(johnny.getId(), b);
     }
 
+    @Test
+    void virtualThreads() throws Exception {
+        boolean virtual = Executor.VIRTUAL_THREADS;
+        Executor.VIRTUAL_THREADS = true;
+        try {
+            FreeStyleProject p = j.createFreeStyleProject();
+            p.getBuildersList().add(new TestBuilder() {
+                @Override
+                public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+                    assertTrue(Thread.currentThread().isVirtual());
+                    assertEquals(build.getExecutor(), Executor.currentExecutor());
+                    assertNotNull(build.getEnvironment(listener).get("EXECUTOR_NUMBER"));
+                    return true;
+                }
+            });
+            FreeStyleBuild b = j.buildAndAssertSuccess(p);
+
+            b = startBlockingBuild(p);
+            Executor e = b.getExecutor();
+            assertNotNull(e);
+            assertTrue(e.isActive());
+            e.interrupt(Result.FAILURE);
+            j.assertBuildStatus(Result.FAILURE, j.waitForCompletion(b));
+        } finally {
+            Executor.VIRTUAL_THREADS = virtual;
+        }
+    }
+
     @Test
     void disconnectCause() throws Exception {
         DumbSlave slave = j.createOnlineSlave();
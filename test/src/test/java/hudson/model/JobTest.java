@@ -26,10 +26,12 @@
 package hudson.model;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.endsWith;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -50,6 +52,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.Collection;
@@ -64,6 +67,7 @@ import jenkins.model.Jenkins;
 import jenkins.model.ProjectNamingStrategy;
 import jenkins.model.Tab;
 import jenkins.model.TransientActionFactory;
+import jenkins.util.io.WriteBehind;
 import org.hamcrest.Matchers;
 import org.htmlunit.Page;
 import org.htmlunit.TextPage;
@@ -348,6 +352,26 @@ class JobTest {
         p.renameTo("different-name");
     }
 
+    @Test
+    void renameWithPendingBuildSave() throws Exception {
+        boolean enabled = WriteBehind.ENABLED;
+        long delay = WriteBehind.DELAY;
+        WriteBehind.ENABLED = true;
+        WriteBehind.DELAY = 60_000;
+        try {
+            FreeStyleProject p = j.createFreeStyleProject("old-name");
+            FreeStyleBuild b = j.buildAndAssertSuccess(p);
+            File oldBuildDir = b.getRootDir();
+            b.setDescription("saved before the rename");
+            p.renameTo("new-name");
+            assertFalse(oldBuildDir.exists());
+            assertThat(Files.readString(new File(b.getRootDir(), "build.xml").toPath()), containsString("saved before the rename"));
+        } finally {
+            WriteBehind.ENABLED = enabled;
+            WriteBehind.DELAY = delay;
+        }
+    }
+
     @Issue("JENKINS-44657")
     @Test
     void testRenameWithCustomBuildsDirWithBuildsIntact() throws Exception {
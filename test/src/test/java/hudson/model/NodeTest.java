@@ -34,6 +34,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -63,6 +64,7 @@ import java.util.GregorianCalendar;
 import java.util.List;
 import jenkins.model.Jenkins;
 import jenkins.model.NodeListener;
+import jenkins.model.labels.LabelBitSet;
 import jenkins.security.QueueItemAuthenticatorConfiguration;
 import org.htmlunit.HttpMethod;
 import org.htmlunit.Page;
@@ -218,6 +220,29 @@ class NodeTest {
         assertTrue(node.getAssignedLabels().contains(node.getSelfLabel()), "Node should have self label.");
     }
 
+    @Test
+    void assignedLabelBitSetFollowsLabelChanges() throws Exception {
+        Node node = j.createOnlineSlave();
+        node.setLabelString("label1");
+        Label label1 = j.jenkins.getLabel("label1");
+        Label label2 = j.jenkins.getLabel("label2");
+        Label dynamic = j.jenkins.getLabel("dynamicLabel");
+        assertSame(node.getAssignedLabelBitSet(), node.getAssignedLabelBitSet(), "unchanged labels should reuse the bit set");
+        assertTrue(label1.matches(node));
+        assertFalse(label2.matches(node));
+        node.setLabelString("label2");
+        assertFalse(label1.matches(node));
+        assertTrue(label2.matches(node));
+        assertFalse(dynamic.matches(node));
+        addDynamicLabel = true;
+        // as for Label.getNodes, dynamic labels are picked up once labels are computed again
+        assertEquals(LabelBitSet.of(node.getAssignedLabels()), node.getAssignedLabelBitSet());
+        assertTrue(dynamic.matches(node));
+        addDynamicLabel = false;
+        Node.resetDynamicLabels();
+        assertFalse(dynamic.matches(node));
+    }
+
     @Test
     void testCanTake() throws Exception {
         Slave node = j.createOnlineSlave();
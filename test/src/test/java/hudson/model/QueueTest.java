@@ -30,6 +30,7 @@ import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThan;
@@ -66,6 +67,7 @@ import hudson.model.listeners.SaveableListener;
 import hudson.model.queue.CauseOfBlockage;
 import hudson.model.queue.QueueTaskDispatcher;
 import hudson.model.queue.QueueTaskFuture;
+import hudson.model.queue.ScheduleRequest;
 import hudson.model.queue.ScheduleResult;
 import hudson.model.queue.SubTask;
 import hudson.security.ACL;
@@ -183,6 +185,52 @@ public class QueueTest {
         assertTrue(q.cancel(testProject));
     }
 
+    @Test
+    void journalPersistence() throws Exception {
+        boolean journal = Queue.JOURNAL;
+        Queue.JOURNAL = true;
+        try {
+            Queue q = r.jenkins.getQueue();
+            r.jenkins.setNumExecutors(0);
+            FreeStyleProject a = r.createFreeStyleProject("a");
+            FreeStyleProject b = r.createFreeStyleProject("b");
+            FreeStyleProject c = r.createFreeStyleProject("c");
+            q.save();
+
+            assertNotNull(a.scheduleBuild2(0, new UserIdCause()));
+            assertNotNull(b.scheduleBuild2(0));
+            assertNotNull(c.scheduleBuild2(0));
+            assertTrue(q.cancel(b));
+            long id = q.getItem(a).getId();
+
+            // as if restarting without a clean shutdown, so only queue.xml and the journal are left
+            q.load();
+            assertEquals(2, q.getItems().length);
+            assertEquals(id, q.getItem(a).getId());
+            assertNotNull(q.getItem(a).getAction(CauseAction.class).findCause(UserIdCause.class));
+            assertNull(q.getItem(b));
+            assertNotNull(q.getItem(c));
+            assertFalse(q.getXMLQueueFile().exists());
+
+            // the journal alone now holds what was loaded
+            q.load();
+            assertEquals(2, q.getItems().length);
+            assertEquals(id, q.getItem(a).getId());
+
+            q.clear();
+
+            // a full save discards the journal even once it is disabled, so that it cannot bring back old items
+            File journalFile = new File(q.getXMLQueueFile().getParentFile(), "queue.journal");
+            assertNotNull(b.scheduleBuild2(0));
+            Queue.JOURNAL = false;
+            q.save();
+            assertFalse(journalFile.exists());
+            q.clear();
+        } finally {
+            Queue.JOURNAL = journal;
+        }
+    }
+
     /**
      * Make sure the queue can be reconstructed from a List queue.xml.
      * Prior to the Queue.State class, the Queue items were just persisted as a List.
@@ -567,6 +615,60 @@ public class QueueTest {
         assertTrue(r.jenkins.getQueue().cancel(p));
     }
 
+    @Test
+    void snapshotLookups() throws Exception {
+        Queue q = r.jenkins.getQueue();
+        Label label = Label.get("unknown-slave");
+        FreeStyleProject a = r.createFreeStyleProject("a");
+        a.setAssignedLabel(label);
+        FreeStyleProject b = r.createFreeStyleProject("b");
+        b.setAssignedLabel(label);
+        FreeStyleProject c = r.createFreeStyleProject("c");
+        a.scheduleBuild2(0);
+        b.scheduleBuild2(0);
+        c.scheduleBuild2(1000);
+
+        await().untilAsserted(() -> assertEquals(2, q.countBuildableItemsFor(label)));
+        Queue.Item ia = q.getItem(a);
+        assertNotNull(ia);
+        assertSame(ia, q.getItem(ia.getId()));
+        assertEquals(List.of(ia), q.getItems(a));
+        assertTrue(q.contains(b));
+        assertTrue(q.getItem(c) instanceof Queue.WaitingItem);
+        assertEquals(2, q.strictCountBuildableItemsFor(label));
+        assertEquals(0, q.strictCountBuildableItemsFor(null));
+        assertEquals(2, q.countBuildableItemsFor(null));
+
+        assertTrue(q.cancel(a));
+        assertNull(q.getItem(a));
+        assertFalse(q.contains(a));
+        assertTrue(q.getItems(a).isEmpty());
+        assertEquals(1, q.countBuildableItemsFor(label));
+        // cancelled items are still found by id among the left items
+        assertTrue(q.getItem(ia.getId()) instanceof Queue.LeftItem);
+        q.clear();
+    }
+
+    @Test
+    void scheduleAll() throws Exception {
+        Queue q = r.jenkins.getQueue();
+        FreeStyleProject a = r.createFreeStyleProject("a");
+        FreeStyleProject b = r.createFreeStyleProject("b");
+        List<ScheduleResult> results = q.scheduleAll(List.of(
+                new ScheduleRequest(a, 1000),
+                new ScheduleRequest(b, 1000, new CauseAction(new UserIdCause())),
+                new ScheduleRequest(a, 1000)));
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isCreated());
+        assertTrue(results.get(1).isCreated());
+        assertFalse(results.get(2).isCreated());
+        assertSame(results.get(0).getItem(), results.get(2).getItem());
+        assertEquals(2, q.getItems().length);
+        assertNotNull(q.getItem(b).getAction(CauseAction.class));
+        assertTrue(q.scheduleAll(List.of()).isEmpty());
+        q.clear();
+    }
+
     @Issue("JENKINS-28926")
     @Test
     void upstreamDownstreamCycle() throws Exception {
@@ -1542,6 +1644,59 @@ public class QueueTest {
         r.jenkins.removeNode(onlineSlave);
     }
 
+    @Test
+    void incrementalMaintenance() throws Exception {
+        boolean incremental = Queue.INCREMENTAL_MAINTENANCE;
+        long interval = Queue.FULL_MAINTENANCE_INTERVAL;
+        Queue.INCREMENTAL_MAINTENANCE = true;
+        Queue.FULL_MAINTENANCE_INTERVAL = Long.MAX_VALUE;
+        try {
+            // no executors, so that nothing starting or finishing requests a full pass
+            r.jenkins.setNumExecutors(0);
+            Queue queue = r.jenkins.getQueue();
+            FreeStyleProject blocked = r.createFreeStyleProject(CountingQueueTaskDispatcher.BLOCKED);
+            FreeStyleProject other = r.createFreeStyleProject("other");
+            blocked.scheduleBuild2(0);
+            await().until(() -> queue.getItem(blocked) instanceof Queue.BlockedItem);
+            queue.scheduleMaintenance().get();
+            int evaluations = CountingQueueTaskDispatcher.evaluations.get();
+            assertThat(evaluations, greaterThan(0));
+
+            // only the new item gets looked at
+            other.scheduleBuild2(0);
+            await().until(() -> queue.getItem(other) instanceof Queue.BuildableItem);
+            assertEquals(evaluations, CountingQueueTaskDispatcher.evaluations.get());
+
+            // until something else changes
+            queue.scheduleMaintenance().get();
+            assertThat(CountingQueueTaskDispatcher.evaluations.get(), greaterThan(evaluations));
+            queue.clear();
+        } finally {
+            Queue.INCREMENTAL_MAINTENANCE = incremental;
+            Queue.FULL_MAINTENANCE_INTERVAL = interval;
+        }
+    }
+
+    @TestExtension("incrementalMaintenance")
+    public static class CountingQueueTaskDispatcher extends QueueTaskDispatcher {
+        static final String BLOCKED = "blocked";
+        static final AtomicInteger evaluations = new AtomicInteger();
+
+        @Override
+        public CauseOfBlockage canRun(Queue.Item item) {
+            if (item.task instanceof FreeStyleProject p && p.getName().equals(BLOCKED)) {
+                evaluations.incrementAndGet();
+                return new CauseOfBlockage() {
+                    @Override
+                    public String getShortDescription() {
+                        return "blocked for the test";
+                    }
+                };
+            }
+            return null;
+        }
+    }
+
     private static class Cancelled extends CauseOfBlockage {
         @Override
         public String getShortDescription() {
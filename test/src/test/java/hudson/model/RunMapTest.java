@@ -11,6 +11,9 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.google.common.collect.Streams;
 import hudson.model.queue.QueueTaskFuture;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -21,8 +24,10 @@ import java.util.TreeMap;
 import java.util.logging.Level;
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
+import jenkins.model.lazy.LazyBuildMixIn;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.FailureBuilder;
 import org.jvnet.hudson.test.Issue;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.LogRecorder;
@@ -222,4 +227,95 @@ class RunMapTest {
                 6,
                 RunLoadCounter.assertMaxLoads(p, 6, () -> Streams.findLast(p.getBuilds().stream().limit(5)).orElse(null).number).intValue());
     }
+
+    @Test
+    void historicalBuildsFromIndex() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject();
+        for (int i = 0; i < 5; i++) {
+            r.buildAndAssertSuccess(p);
+        }
+        p.getBuildByNumber(3).setDescription("third");
+        p.getBuildByNumber(2).delete();
+        List<String> expected = List.of("5 SUCCESS null", "4 SUCCESS null", "3 SUCCESS third", "1 SUCCESS null");
+        assertEquals(expected, RunLoadCounter.assertMaxLoads(p, 0, () -> Streams.stream(p.getHistoricalBuilds())
+                .map(b -> b.getNumber() + " " + b.getResult() + " " + b.getDescription()).toList()));
+    }
+
+    @Test
+    void runListFiltersFromIndex() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject();
+        for (int i = 1; i <= 6; i++) {
+            p.getBuildersList().replaceBy(i % 2 == 0 ? List.of(new FailureBuilder()) : List.of());
+            r.buildAndAssertStatus(i % 2 == 0 ? Result.FAILURE : Result.SUCCESS, p);
+        }
+        long start = p.getBuildByNumber(2).getTimeInMillis();
+        long end = p.getBuildByNumber(5).getTimeInMillis();
+        // only builds actually returned get loaded
+        assertEquals(List.of(6, 4), RunLoadCounter.assertMaxLoads(p, 2, () -> p.getBuilds().failureOnly().limit(2).stream().map(Run::getNumber).toList()));
+        assertEquals(List.of(4, 3, 2), RunLoadCounter.assertMaxLoads(p, 3, () -> p.getBuilds().byTimestamp(start, end).stream().map(Run::getNumber).toList()));
+    }
+
+    @Test
+    void runListLimitSkipsUnloadableBuilds() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject();
+        for (int i = 0; i < 4; i++) {
+            r.buildAndAssertSuccess(p);
+        }
+        Files.writeString(new File(p.getBuildByNumber(3).getRootDir(), "build.xml").toPath(), "<broken");
+        p._getRuns().purgeCache();
+        // build #3 is still indexed but fails to load, so it must not use up one of the three slots
+        assertEquals(List.of(4, 2, 1), p.getBuilds().limit(3).stream().map(Run::getNumber).toList());
+    }
+
+    @Test
+    void staleNextBuildNumber() throws Exception {
+        logs.record(LazyBuildMixIn.class, Level.WARNING).capture(10);
+        FreeStyleProject p = r.createFreeStyleProject();
+        for (int i = 0; i < 3; i++) {
+            r.buildAndAssertSuccess(p);
+        }
+        // as if nextBuildNumber had been reset after the job was loaded
+        p.fastUpdateNextBuildNumber(1);
+        assertEquals(4, r.buildAndAssertSuccess(p).getNumber());
+        // skipped past all the builds on disk at once, rather than trying each number in turn
+        assertEquals(1, logs.getMessages().stream().filter(m -> m.startsWith("JENKINS-23152")).count());
+    }
+
+    @Test
+    void restoredBuildAboveNextBuildNumber() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject();
+        r.buildAndAssertSuccess(p);
+        // as if an older build had been restored by hand, well above nextBuildNumber
+        Files.createDirectory(new File(p.getBuildDir(), "10").toPath());
+        p.doReload();
+        assertEquals(11, p.getNextBuildNumber());
+        assertEquals(11, r.buildAndAssertSuccess(p).getNumber());
+    }
+
+    @Test
+    void deferredScan() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject();
+        for (int i = 0; i < 3; i++) {
+            r.buildAndAssertSuccess(p);
+        }
+        RunMap<FreeStyleBuild> runs = new RunMap<>(p, new RunMap.Constructor<>() {
+            @Override
+            public FreeStyleBuild create(File dir) throws IOException {
+                return new FreeStyleBuild(p, dir);
+            }
+
+            @Override
+            public Class<FreeStyleBuild> getBuildClass() {
+                return FreeStyleBuild.class;
+            }
+        });
+        // found without listing the builds directory
+        FreeStyleBuild b2 = runs.getByNumber(2);
+        assertNotNull(b2);
+        assertEquals(3, runs.newestBuild(4).getNumber());
+        // a missing build is looked for by listing it, which keeps the builds already loaded
+        assertNull(runs.getByNumber(7));
+        assertEquals(List.of(3, 2, 1), new ArrayList<>(runs.keySet()));
+        assertSame(b2, runs.getByNumber(2));
+    }
 }
@@ -27,6 +27,7 @@ package hudson.model.labels;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -47,8 +48,11 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.Future;
+import jenkins.model.labels.CompiledLabelExpression;
+import jenkins.model.labels.LabelBitSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -388,6 +392,32 @@ class LabelExpressionTest {
         assertEquals(result.size(), expected.length);
     }
 
+    @Test
+    void compiledMatchesInterpreted() {
+        String[] atoms = {"a", "b", "c", "d"};
+        String[] expressions = {
+            "a", "a && b", "a && b && c", "a || b || c", "!a", "!(a || b)", "a && (b || c)", "(a && b) || (c && d)",
+            "a -> b", "a <-> b", "!a && b || c -> d", "a && !b && c", "(a || b) && (c || d)", "a || b && c <-> !d",
+        };
+        for (String expression : expressions) {
+            Label label = Label.parseExpression(expression);
+            assertNotNull(CompiledLabelExpression.compile(label), expression);
+            for (int bits = 0; bits < 1 << atoms.length; bits++) {
+                Set<LabelAtom> owned = new HashSet<>();
+                for (int i = 0; i < atoms.length; i++) {
+                    if ((bits & 1 << i) != 0) {
+                        owned.add(j.jenkins.getLabelAtom(atoms[i]));
+                    }
+                }
+                // unrelated atoms must not matter
+                owned.add(j.jenkins.getLabelAtom("unrelated" + bits));
+                boolean expected = label.matches(name -> owned.stream().anyMatch(a -> a.getName().equals(name)));
+                assertEquals(expected, label.matches(owned), expression + " with " + owned);
+                assertEquals(expected, label.matches(LabelBitSet.of(owned)), expression + " with " + owned);
+            }
+        }
+    }
+
     private static File newFolder(File root, String... subDirs) throws IOException {
         String subFolder = String.join("/", subDirs);
         File result = new File(root, subFolder);
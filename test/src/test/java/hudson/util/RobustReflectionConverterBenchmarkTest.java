@@ -0,0 +1,89 @@
+package hudson.util;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.XmlFile;
+import hudson.model.Cause;
+import hudson.model.CauseAction;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.StringParameterValue;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares reading builds with the field lookups of {@link RobustReflectionConverter} cached per class
+ * with looking fields up for each element, as it used to.
+ */
+public class RobustReflectionConverterBenchmarkTest {
+
+    @Test
+    void runBenchmark() throws Exception {
+        // run the minimum possible number of iterations
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .mode(Mode.AverageTime)
+                .forks(1)
+                .result("jmh-report.json")
+                .resultFormat(ResultFormatType.JSON)
+                .operationsPerInvocation(1)
+                .threads(1)
+                .warmupForks(0)
+                .warmupIterations(0)
+                .measurementBatchSize(1)
+                .measurementIterations(1)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .shouldFailOnError(true)
+                .include(RobustReflectionConverterBenchmarkTest.class.getName() + ".*");
+        new Runner(options.build()).run();
+        assertTrue(Files.exists(Paths.get("jmh-report.json")));
+    }
+
+    @JmhBenchmark
+    public static class UnmarshalBenchmark {
+        private static final int PARAMETERS = 20;
+
+        public static class StateImpl extends JmhBenchmarkState {
+            FreeStyleBuild build;
+            XmlFile dataFile;
+
+            @Override
+            public void setup() throws Exception {
+                FreeStyleProject p = getJenkins().createProject(FreeStyleProject.class, "p");
+                List<ParameterValue> parameters = new ArrayList<>();
+                for (int i = 0; i < PARAMETERS; i++) {
+                    parameters.add(new StringParameterValue("param" + i, "value" + i));
+                }
+                build = p.scheduleBuild2(0, new Cause.RemoteCause("localhost", "benchmark"),
+                        new ParametersAction(parameters), new CauseAction(new Cause.UserIdCause())).get();
+                dataFile = build.getDataFile();
+            }
+        }
+
+        @Benchmark
+        public void cachedFields(StateImpl state, Blackhole blackhole) throws Exception {
+            RobustReflectionConverter.CACHE_FIELDS = true;
+            blackhole.consume(state.dataFile.unmarshal(state.build));
+        }
+
+        @Benchmark
+        public void reflectiveFields(StateImpl state, Blackhole blackhole) throws Exception {
+            RobustReflectionConverter.CACHE_FIELDS = false;
+            blackhole.consume(state.dataFile.unmarshal(state.build));
+        }
+    }
+}
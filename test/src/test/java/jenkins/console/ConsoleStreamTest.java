@@ -0,0 +1,147 @@
+package jenkins.console;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.util.OneShotEvent;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import net.sf.json.JSONObject;
+import org.htmlunit.HttpMethod;
+import org.htmlunit.WebRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class ConsoleStreamTest {
+
+    private JenkinsRule j;
+
+    @BeforeEach
+    void setUp(JenkinsRule rule) {
+        j = rule;
+    }
+
+    @Test
+    void onlyRunningBuildsFromJenkins() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        OneShotEvent started = new OneShotEvent();
+        OneShotEvent done = new OneShotEvent();
+        p.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException {
+                listener.getLogger().println("running");
+                started.signal();
+                done.block();
+                return true;
+            }
+        });
+        FreeStyleBuild b = p.scheduleBuild2(0).waitForStart();
+        started.block();
+        URL jenkinsUrl = j.getURL();
+        String origin = jenkinsUrl.getProtocol() + "://" + jenkinsUrl.getHost() + ":" + jenkinsUrl.getPort();
+        try (JenkinsRule.WebClient wc = j.createWebClient().withThrowExceptionOnFailingStatusCode(false)) {
+            WebRequest request = new WebRequest(new URL(jenkinsUrl, b.getUrl() + "consoleStream?start=0"), HttpMethod.GET);
+            assertThat(wc.getPage(request).getWebResponse().getStatusCode(), is(403)); // no Origin header
+
+            request.setAdditionalHeader("Origin", jenkinsUrl.getProtocol() + "://example.org:" + jenkinsUrl.getPort());
+            assertThat(wc.getPage(request).getWebResponse().getStatusCode(), is(403)); // wrong Origin
+
+            request.setAdditionalHeader("Origin", origin);
+            // HTTP 400 is WebSocket "success" (HTMLUnit doesn't support it)
+            assertThat(wc.getPage(request).getWebResponse().getStatusCode(), is(400));
+
+            done.signal();
+            j.waitForCompletion(b);
+            assertThat(wc.getPage(request).getWebResponse().getStatusCode(), is(404)); // nothing to stream any more
+        }
+    }
+
+    @Test
+    void viewersShareOneTailer() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        OneShotEvent started = new OneShotEvent();
+        OneShotEvent more = new OneShotEvent();
+        OneShotEvent done = new OneShotEvent();
+        p.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException {
+                listener.getLogger().println("first line");
+                started.signal();
+                more.block();
+                listener.getLogger().println("second line");
+                done.block();
+                return true;
+            }
+        });
+        FreeStyleBuild b = p.scheduleBuild2(0).waitForStart();
+        started.block();
+        Console one = new Console();
+        Console two = new Console();
+        WebSocket ws1 = one.open(b);
+        await().atMost(30, TimeUnit.SECONDS).until(one::text, containsString("first line"));
+        WebSocket ws2 = two.open(b);
+        await().atMost(30, TimeUnit.SECONDS).until(two::text, containsString("first line"));
+        await().atMost(30, TimeUnit.SECONDS).until(() -> ConsoleStream.viewers(b), is(2));
+
+        more.signal();
+        await().atMost(30, TimeUnit.SECONDS).until(one::text, containsString("second line"));
+        await().atMost(30, TimeUnit.SECONDS).until(two::text, containsString("second line"));
+
+        done.signal();
+        j.waitForCompletion(b);
+        await().atMost(30, TimeUnit.SECONDS).until(() -> one.completed && two.completed);
+        await().atMost(30, TimeUnit.SECONDS).until(() -> ConsoleStream.viewers(b), is(0));
+        ws1.abort();
+        ws2.abort();
+    }
+
+    /**
+     * Collects what a browser would append to the console.
+     */
+    private final class Console implements WebSocket.Listener {
+        private final StringBuilder text = new StringBuilder();
+        private final StringBuilder partial = new StringBuilder();
+        volatile boolean completed;
+
+        WebSocket open(FreeStyleBuild b) throws Exception {
+            URL jenkinsUrl = j.getURL();
+            URI uri = new URI("ws", null, jenkinsUrl.getHost(), jenkinsUrl.getPort(), jenkinsUrl.getPath() + b.getUrl() + "consoleStream", "start=0", null);
+            return HttpClient.newHttpClient().newWebSocketBuilder()
+                    .header("Origin", jenkinsUrl.getProtocol() + "://" + jenkinsUrl.getHost() + ":" + jenkinsUrl.getPort())
+                    .buildAsync(uri, this)
+                    .get(30, TimeUnit.SECONDS);
+        }
+
+        synchronized String text() {
+            return text.toString();
+        }
+
+        @Override
+        public synchronized CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                JSONObject message = JSONObject.fromObject(partial.toString());
+                partial.setLength(0);
+                text.append(message.getString("text"));
+                completed |= message.getBoolean("completed");
+            }
+            webSocket.request(1);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package jenkins.model;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.ItemGroupMixIn;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.MockFolder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures how long loading all items takes, as on startup, for various numbers of folders and jobs.
+ */
+public class ItemLoadingBenchmarkTest {
+
+    @Test
+    void runBenchmark() throws Exception {
+        // run the minimum possible number of iterations
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .mode(Mode.AverageTime)
+                .forks(1)
+                .result("jmh-report.json")
+                .resultFormat(ResultFormatType.JSON)
+                .operationsPerInvocation(1)
+                .threads(1)
+                .warmupForks(0)
+                .warmupIterations(0)
+                .measurementBatchSize(1)
+                .measurementIterations(1)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .shouldFailOnError(true)
+                .include(ItemLoadingBenchmarkTest.class.getName() + ".*");
+        new Runner(options.build()).run();
+        assertTrue(Files.exists(Paths.get("jmh-report.json")));
+    }
+
+    @JmhBenchmark
+    public static class LoadingBenchmark {
+
+        public static class StateImpl extends JmhBenchmarkState {
+            @Param({"1", "20"})
+            int folders;
+
+            @Param({"50", "500"})
+            int jobsPerFolder;
+
+            /** Nested folders below each top level folder. */
+            @Param({"0", "2"})
+            int depth;
+
+            /** Whether the children of each folder are loaded in parallel. */
+            @Param({"true", "false"})
+            boolean parallel;
+
+            @Override
+            public void setup() throws Exception {
+                ItemGroupMixIn.DISABLE_PARALLEL_LOAD_CHILDREN = !parallel;
+                for (int i = 0; i < folders; i++) {
+                    MockFolder folder = getJenkins().createProject(MockFolder.class, "folder" + i);
+                    for (int d = 0; d < depth; d++) {
+                        folder = folder.createProject(MockFolder.class, "nested" + d);
+                    }
+                    for (int j = 0; j < jobsPerFolder; j++) {
+                        folder.createProject(FreeStyleProject.class, "job" + j);
+                    }
+                }
+            }
+
+            @Override
+            public void tearDown() {
+                ItemGroupMixIn.DISABLE_PARALLEL_LOAD_CHILDREN = false;
+            }
+        }
+
+        @Benchmark
+        public void reload(StateImpl state) throws Exception {
+            state.getJenkins().reload();
+        }
+    }
+}
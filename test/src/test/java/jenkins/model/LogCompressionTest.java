@@ -0,0 +1,71 @@
+package jenkins.model;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import java.io.File;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class LogCompressionTest {
+
+    private JenkinsRule j;
+
+    @BeforeEach
+    void setUp(JenkinsRule rule) {
+        j = rule;
+        LogCompression.ENABLED = true;
+        LogCompression.DELAY = 0;
+    }
+
+    @AfterEach
+    void tearDown() {
+        LogCompression.ENABLED = false;
+        LogCompression.DELAY = 60;
+    }
+
+    @Test
+    void compressCompletedLogs() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+                for (int i = 0; i < 1000; i++) {
+                    listener.getLogger().println("line " + i);
+                }
+                return true;
+            }
+        });
+        FreeStyleBuild b = j.buildAndAssertSuccess(p);
+        File gz = new File(b.getRootDir(), "log.gz");
+        await().until(() -> gz.isFile() && !new File(b.getRootDir(), "log").exists());
+        LogCompression.await();
+        assertThat(b.getLogFile(), is(gz));
+        assertThat(LogCompression.get().getBytesReclaimed(), greaterThan(0L));
+
+        // still readable as before
+        try (InputStream in = b.getLogInputStream()) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8), containsString("line 999"));
+        }
+        StringWriter w = new StringWriter();
+        assertThat(b.getLogText().writeLogTo(0, w), greaterThan(0L));
+        assertThat(w.toString(), containsString("line 500"));
+        assertThat(b.getLog(1).get(0), containsString("Finished: SUCCESS"));
+    }
+}
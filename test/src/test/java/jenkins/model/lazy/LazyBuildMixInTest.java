@@ -25,6 +25,7 @@
 package jenkins.model.lazy;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -34,11 +35,15 @@ import static org.junit.jupiter.api.Assertions.assertSame;
 
 import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
+import hudson.model.Result;
 import hudson.model.listeners.RunListener;
+import java.lang.ref.WeakReference;
+import jenkins.model.HistoricalBuild;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.jvnet.hudson.test.Issue;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MemoryAssert;
 import org.jvnet.hudson.test.RunLoadCounter;
 import org.jvnet.hudson.test.SleepBuilder;
 import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
@@ -76,6 +81,40 @@ class LazyBuildMixInTest {
         assertEquals(b3, b1a.getNextBuild());
     }
 
+    @Test
+    void summaryModeKeepsSummaryOfCollectedBuild() throws Exception {
+        String mode = BuildReference.DefaultHolderFactory.mode;
+        boolean indexDisabled = BuildIndex.DISABLED;
+        BuildReference.DefaultHolderFactory.mode = "summary";
+        // so that the summary can only come from the build reference
+        BuildIndex.DISABLED = true;
+        try {
+            RunListener.all().clear();
+            FreeStyleProject p = r.createFreeStyleProject();
+            FreeStyleBuild b1 = r.buildAndAssertSuccess(p);
+            r.buildAndAssertSuccess(p);
+            r.jenkins.getQueue().clearLeftItems();
+            b1.setDescription("first");
+            WeakReference<FreeStyleBuild> ref = new WeakReference<>(b1);
+            b1 = null;
+            MemoryAssert.assertGC(ref, false);
+
+            HistoricalBuild first = null;
+            for (HistoricalBuild b : p.getHistoricalBuilds()) {
+                if (b.getNumber() == 1) {
+                    first = b;
+                }
+            }
+            assertThat(first, instanceOf(IndexedBuild.class));
+            assertEquals("first", first.getDescription());
+            assertEquals(Result.SUCCESS, first.getResult());
+            assertNull(ref.get());
+        } finally {
+            BuildReference.DefaultHolderFactory.mode = mode;
+            BuildIndex.DISABLED = indexDisabled;
+        }
+    }
+
     @Issue("JENKINS-22395")
     @Test
     void dropLinksAfterGC2() throws Exception {
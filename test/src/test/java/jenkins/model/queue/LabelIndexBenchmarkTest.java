@@ -0,0 +1,103 @@
+package jenkins.model.queue;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.slaves.DumbSlave;
+import hudson.slaves.JNLPLauncher;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares finding the nodes able to take items of various labels through a {@link LabelIndex}
+ * with checking every node against every item, as the queue used to do.
+ */
+public class LabelIndexBenchmarkTest {
+
+    @Test
+    void runBenchmark() throws Exception {
+        // run the minimum possible number of iterations
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .mode(Mode.AverageTime)
+                .forks(1)
+                .result("jmh-report.json")
+                .resultFormat(ResultFormatType.JSON)
+                .operationsPerInvocation(1)
+                .threads(1)
+                .warmupForks(0)
+                .warmupIterations(0)
+                .measurementBatchSize(1)
+                .measurementIterations(1)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .shouldFailOnError(true)
+                .include(LabelIndexBenchmarkTest.class.getName() + ".*");
+        new Runner(options.build()).run();
+        assertTrue(Files.exists(Paths.get("jmh-report.json")));
+    }
+
+    @JmhBenchmark
+    public static class MatchingBenchmark {
+        private static final int NODES = 500;
+        private static final int POOLS = 25;
+        private static final int ITEMS = 1000;
+
+        public static class StateImpl extends JmhBenchmarkState {
+            final List<Node> nodes = new ArrayList<>();
+            final List<Label> items = new ArrayList<>();
+
+            @Override
+            public void setup() throws Exception {
+                for (int i = 0; i < NODES; i++) {
+                    DumbSlave agent = new DumbSlave("agent" + i, "/tmp/agent" + i, new JNLPLauncher());
+                    agent.setLabelString("pool" + i % POOLS + " " + (i % 2 == 0 ? "linux" : "windows"));
+                    getJenkins().addNode(agent);
+                    nodes.add(agent);
+                }
+                for (int i = 0; i < ITEMS; i++) {
+                    String expression = i % 3 == 0 ? "pool" + i % POOLS + " && linux" : "pool" + i % POOLS;
+                    try {
+                        items.add(Label.parseExpression(expression));
+                    } catch (IllegalArgumentException x) {
+                        throw new IllegalStateException("Invalid label expression " + expression, x);
+                    }
+                }
+            }
+        }
+
+        @Benchmark
+        public void labelIndex(StateImpl state, Blackhole blackhole) {
+            LabelIndex<Node> index = new LabelIndex<>(state.nodes, Function.identity());
+            for (Label label : state.items) {
+                blackhole.consume(index.get(label));
+            }
+        }
+
+        @Benchmark
+        public void everyNode(StateImpl state, Blackhole blackhole) {
+            for (Label label : state.items) {
+                List<Node> candidates = new ArrayList<>();
+                for (Node node : state.nodes) {
+                    if (label.contains(node)) {
+                        candidates.add(node);
+                    }
+                }
+                blackhole.consume(candidates);
+            }
+        }
+    }
+}
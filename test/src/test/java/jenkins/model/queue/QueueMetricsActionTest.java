@@ -0,0 +1,64 @@
+package jenkins.model.queue;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Queue;
+import hudson.model.queue.QueueTaskDispatcher;
+import java.util.GregorianCalendar;
+import java.util.List;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+@WithJenkins
+class QueueMetricsActionTest {
+
+    private JenkinsRule r;
+
+    @BeforeEach
+    void setUp(JenkinsRule rule) {
+        r = rule;
+    }
+
+    @Test
+    void metrics() throws Exception {
+        QueueMetrics.get().reset();
+        FreeStyleProject p = r.createFreeStyleProject();
+        r.buildAndAssertSuccess(p);
+
+        try (var webClient = r.createWebClient()) {
+            var page = webClient.goTo("queue-metrics/", "application/json");
+            assertThat(page.getWebResponse().getStatusCode(), is(200));
+            JSONObject json = JSONObject.fromObject(page.getWebResponse().getContentAsString());
+            assertThat(json.getJSONObject("maintainMicros").getJSONObject("total").getLong("count"), greaterThan(0L));
+            assertThat(json.getJSONObject("timeInStateMillis").getJSONObject("buildable").getLong("count"), greaterThan(0L));
+            JSONObject dispatcher = json.getJSONObject("dispatcherMicros").getJSONObject(Counting.class.getName());
+            assertThat(dispatcher.getJSONObject("canRun").getLong("count"), greaterThan(0L));
+            assertThat(dispatcher.getJSONObject("canTake").getLong("count"), greaterThan(0L));
+        }
+    }
+
+    @Test
+    void forgetsItemsNoLongerInQueue() throws Exception {
+        FreeStyleProject p = r.createFreeStyleProject();
+        // as if items had left without the listener hearing about it
+        QueueMetrics.Listener listener = new QueueMetrics.Listener();
+        for (int i = 0; i < QueueMetrics.PRUNE_MIN; i++) {
+            listener.onEnterWaiting(new Queue.WaitingItem(new GregorianCalendar(), p, List.of()));
+        }
+        assertThat(QueueMetrics.get().trackedItems(), greaterThanOrEqualTo(QueueMetrics.PRUNE_MIN));
+        listener.onEnterWaiting(new Queue.WaitingItem(new GregorianCalendar(), p, List.of()));
+        assertThat(QueueMetrics.get().trackedItems(), is(1));
+    }
+
+    @TestExtension("metrics")
+    public static class Counting extends QueueTaskDispatcher {
+    }
+}